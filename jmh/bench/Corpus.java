@@ -0,0 +1,95 @@
+package bench;
+
+import util.Path;
+import util.Waypoint;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The waypoints the benchmarks run over, all of which come out the same on every run: the waypoint sets from PathGen2D.main, the paths
+ * saved in December272021-195613.txt, and random paths from a fixed seed.
+ */
+final class Corpus {
+    static final String DECEMBER = "/December272021-195613.txt";
+    static final long SEED = 2022;
+    // The default robot's, the same as PathGUITool uses
+    static final double ROBOT_TRK_WIDTH = 1.744792;
+
+    private Corpus() {
+    }
+
+    /**
+     * @param name main1 to main5 for the waypoint sets of PathGen2D.main, or december for the click points of every path in the saved file
+     *
+     * @return the waypoints of every path in the set
+     */
+    static Waypoint[][] named(String name) {
+        // @formatter:off
+        return switch (name) {
+            // Copied from PathGen2D.main, keep them the same
+            case "main1" -> new Waypoint[][]{{new Waypoint(0.0, 0.0, 0.0, 0.0, 0.0), new Waypoint(1.5, 0.0, 0.0, 5.7, 12.0),
+                    new Waypoint(28.5, -15.0, 0.0, 5.7, -12.0), new Waypoint(30.0, -15.0, 0.0, 0.0, 0.0)}};
+            case "main2" -> new Waypoint[][]{{new Waypoint(0.0, 23.14, 0.0, 0.0, 12.0),
+                    new Waypoint(19.31, 16.55, Math.toRadians(-90.0), 12.0, 12.0),
+                    new Waypoint(19.31, 11.03, Math.toRadians(-90.0), 9.0, -12.0),
+                    new Waypoint(24.13, 6.35, Math.toRadians(20.0), 0.0, -12.0)}};
+            case "main3" -> new Waypoint[][]{{new Waypoint(0.0, 0.0, 0.0, 0.0, 12.0), new Waypoint(4.0, 4.0, 0.0, 0.0, -12.0)}};
+            case "main4" -> new Waypoint[][]{{new Waypoint(1.0, 24.0, 0.0, 0.0, 12.0), new Waypoint(2.0, 24.0, 0.0, 4.4, 12.0),
+                    new Waypoint(7.0, 19.0, Math.toRadians(-90.0), 4.4, -12.0),
+                    new Waypoint(7.0, 18.0, Math.toRadians(-90.0), 0.0, -12.0)}};
+            case "main5" -> new Waypoint[][]{{new Waypoint(0.0, 0.0, 0.0, 0.0, 8.0), new Waypoint(1.0, 0.0, 0.0, 4.0, 8.0)}};
+            case "december" -> december().stream().map(path -> path.clickPoints.toArray(Waypoint[]::new)).toArray(Waypoint[][]::new);
+            default -> throw new IllegalArgumentException("No waypoint set called " + name);
+        };
+        // @formatter:on
+    }
+
+    /**
+     * Makes a path that wanders with random turns of up to 90 degrees at each waypoint
+     *
+     * @param count         the number of waypoints
+     * @param segmentLength the straight line distance between waypoints, in ft
+     * @param boundaryVel   the speed at every waypoint but the first and last, which start and end stopped
+     */
+    static Waypoint[] random(int count, double segmentLength, double boundaryVel) {
+        Random random = new Random(SEED);
+        Waypoint[] waypoints = new Waypoint[count];
+        double x = 0.0, y = 0.0, rad = 0.0;
+
+        for (int i = 0; i < count; i++) {
+            double v = i == 0 || i == count - 1 ? 0.0 : boundaryVel;
+            waypoints[i] = new Waypoint(x, y, rad, v, 0.0);
+
+            double turn = Math.toRadians(random.nextDouble() * 180.0 - 90.0);
+            x += segmentLength * Math.cos(rad + turn / 2.0);
+            y += segmentLength * Math.sin(rad + turn / 2.0);
+            rad = Math.atan2(Math.sin(rad + turn), Math.cos(rad + turn));
+        }
+
+        return waypoints;
+    }
+
+    /**
+     * @return the current path and then every saved path in the bundled file, in the order PathGUITool loads them
+     */
+    static List<Path> december() {
+        try (InputStream in = Corpus.class.getResourceAsStream(DECEMBER); ObjectInputStream ois = new ObjectInputStream(in)) {
+            List<Path> paths = new ArrayList<>();
+            paths.add((Path) ois.readObject());
+
+            @SuppressWarnings("unchecked")
+            var saved = (LinkedHashMap<String, Path>) ois.readObject();
+            paths.addAll(saved.values());
+
+            return paths;
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("Couldn't load " + DECEMBER, e);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import util.Waypoint;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates the real paths of the corpus from a cold cache, along with their left and right wheel points the same as PathGUITool does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CorpusBenchmark {
+    @Param({"main1", "main2", "main3", "main4", "main5", "december"})
+    String set;
+
+    private Waypoint[][] paths;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        paths = Corpus.named(set);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearCache() throws Throwable {
+        Targets.CLEAR_CACHE.invokeExact();
+    }
+
+    @Benchmark
+    public void generate(Blackhole bh) throws Throwable {
+        for (Waypoint[] waypoints : paths) {
+            var results = Targets.generate(waypoints);
+            bh.consume(Targets.CONVERT_RESULTS.invoke(results));
+            bh.consume(Targets.LEFT_RIGHT.invoke(results, Corpus.ROBOT_TRK_WIDTH, 0));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import util.FastMath;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FastMath's atan2 and sinCos against the Math functions they stand in for, on the velocities and headings of the samples of a path. This
+ * is what -Dpathgen.fastMath=true has to win by for it to be worth giving up the last few digits.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FastMathBenchmark {
+    @Param({"1000"})
+    int samples;
+
+    private double[] vx, vy, rad;
+    private final double[] sinCos = new double[2];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(14);
+        vx = new double[samples];
+        vy = new double[samples];
+        rad = new double[samples];
+
+        for (int i = 0; i < samples; i++) {
+            double v = random.nextDouble() * 12.0; // ft/s
+            rad[i] = random.nextDouble() * 2.0 * Math.PI - Math.PI;
+            vx[i] = v * Math.cos(rad[i]);
+            vy[i] = v * Math.sin(rad[i]);
+        }
+    }
+
+    @Benchmark
+    public double mathAtan2() {
+        double sum = 0.0;
+        for (int i = 0; i < samples; i++) {
+            sum += Math.atan2(vy[i], vx[i]);
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    public double fastMathAtan2() {
+        double sum = 0.0;
+        for (int i = 0; i < samples; i++) {
+            sum += FastMath.atan2(vy[i], vx[i]);
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    public double mathSinCos() {
+        double sum = 0.0;
+        for (int i = 0; i < samples; i++) {
+            sum += Math.sin(rad[i]) + Math.cos(rad[i]);
+        }
+
+        return sum;
+    }
+
+    @Benchmark
+    public double fastMathSinCos() {
+        double sum = 0.0;
+        for (int i = 0; i < samples; i++) {
+            FastMath.sinCos(rad[i], sinCos);
+            sum += sinCos[0] + sinCos[1];
+        }
+
+        return sum;
+    }
+}
@@ -0,0 +1,63 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import util.PathResults;
+import util.Waypoint;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Generates whole paths from their waypoints. A cold cache makes every segment get solved again, which is what happens the first time a
+ * path is generated, and a warm one measures regenerating the same waypoints, where only the sampling is left.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GenerationBenchmark {
+    @Param({"2", "5", "20", "100"})
+    int waypointCount;
+
+    @Param({"2.0", "8.0", "25.0"})
+    double segmentLength; // ft
+
+    @Param({"0.0", "4.0", "10.0"})
+    double boundaryVel; // ft/s
+
+    @Param({"true", "false"})
+    boolean coldCache;
+
+    private Waypoint[] waypoints;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        waypoints = Corpus.random(waypointCount, segmentLength, boundaryVel);
+        Targets.generate(waypoints);
+    }
+
+    // Only worth its cost when the cache has to be cold, JMH warns against Level.Invocation for anything quicker than a millisecond or so
+    @Setup(Level.Invocation)
+    public void clearCache() throws Throwable {
+        if (coldCache) {
+            Targets.CLEAR_CACHE.invokeExact();
+        }
+    }
+
+    @Benchmark
+    public PathResults generate() throws Throwable {
+        return Targets.generate(waypoints);
+    }
+}
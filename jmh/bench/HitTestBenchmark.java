@@ -0,0 +1,62 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import util.Path;
+import util.Waypoint;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finds the click point under the cursor, the same as pressing the mouse in PathGUITool does. A hit on the last point and a miss both have
+ * to look at every point, so they are the worst cases.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HitTestBenchmark {
+    // About what PathGUITool's scales come out to in a 1080p window
+    private static final double X_SCALE = 30.0, Y_SCALE = 30.0;
+
+    @Param({"2", "5", "20", "100"})
+    int waypointCount;
+
+    private Path path;
+    private Point last, miss;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Waypoint[] waypoints = Corpus.random(waypointCount, 8.0, 4.0);
+        path = new Path();
+        path.clickPoints.addAll(List.of(waypoints));
+
+        Waypoint end = waypoints[waypoints.length - 1];
+        last = new Point((int) (end.getX() * X_SCALE) + 2, (int) (end.getY() * Y_SCALE) - 2);
+        miss = new Point(Integer.MIN_VALUE / 2, Integer.MIN_VALUE / 2);
+    }
+
+    @Benchmark
+    public int hitLast() throws Throwable {
+        return (int) Targets.FIND_CLICKED_POINT.invokeExact(path, last, X_SCALE, Y_SCALE);
+    }
+
+    @Benchmark
+    public int miss() throws Throwable {
+        return (int) Targets.FIND_CLICKED_POINT.invokeExact(path, miss, X_SCALE, Y_SCALE);
+    }
+}
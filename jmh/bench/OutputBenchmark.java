@@ -0,0 +1,64 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import util.BetterArrayList;
+import util.PathOffsets;
+import util.PathResults;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns generated samples into what the GUI and the robot use: Waypoints for the path and its wheels, and the primitive wheel arrays of
+ * PathOffsets to compare them against.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OutputBenchmark {
+    @Param({"2", "5", "20", "100"})
+    int waypointCount;
+
+    @Param({"2.0", "8.0", "25.0"})
+    double segmentLength; // ft
+
+    private PathResults results;
+    private double[][] x, y, v;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        results = Targets.generate(Corpus.random(waypointCount, segmentLength, 4.0));
+        x = new double[2][results.size()];
+        y = new double[2][results.size()];
+        v = new double[2][results.size()];
+    }
+
+    @Benchmark
+    public BetterArrayList<?> leftRight() throws Throwable {
+        return (BetterArrayList<?>) Targets.LEFT_RIGHT.invokeExact(results, Corpus.ROBOT_TRK_WIDTH, 0);
+    }
+
+    @Benchmark
+    public BetterArrayList<?> convertResults() throws Throwable {
+        return (BetterArrayList<?>) Targets.CONVERT_RESULTS.invokeExact(results);
+    }
+
+    @Benchmark
+    public double[][] pathOffsets() {
+        PathOffsets.leftRight(results, 0, results.size(), Corpus.ROBOT_TRK_WIDTH, x, y, v);
+        return x;
+    }
+}
@@ -0,0 +1,127 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import util.BetterArrayList;
+import util.Path;
+import util.PathFile;
+import util.PathResults;
+import util.Waypoint;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves and loads a current path and a map of saved paths, both with PathFile the way PathGUITool does and with the Object streams it used
+ * before. The Object streams are in memory so that the disk doesn't get measured, and PathFile goes through a temporary file that stays in
+ * the page cache since it has to map one. The december source is the bundled file, which only has click points, and a number is that many
+ * generated paths of 20 waypoints each with all of their points filled in, like a file saved after generating.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+    @Param({"december", "1", "10"})
+    String source;
+
+    private Path currentPath;
+    private LinkedHashMap<String, Path> paths;
+    private byte[] saved;
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        List<Path> all = source.equals("december") ? Corpus.december() : generated(Integer.parseInt(source));
+
+        currentPath = all.get(0);
+        paths = new LinkedHashMap<>();
+        for (int i = 1; i < all.size(); i++) {
+            paths.put("path" + i, all.get(i));
+        }
+
+        saved = save();
+        file = File.createTempFile("bench", "." + PathFile.EXTENSION);
+        savePathFile();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public byte[] save() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (var oos = new ObjectOutputStream(out)) {
+            oos.writeObject(currentPath);
+            oos.writeObject(paths);
+        }
+
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public Object load() throws IOException, ClassNotFoundException {
+        try (var ois = new ObjectInputStream(new ByteArrayInputStream(saved))) {
+            ois.readObject();
+            return ois.readObject();
+        }
+    }
+
+    @Benchmark
+    public File savePathFile() throws IOException {
+        PathFile.write(file, currentPath, paths, true);
+        return file;
+    }
+
+    @Benchmark
+    public PathFile.Contents loadPathFile() throws IOException {
+        return PathFile.read(file);
+    }
+
+    private static List<Path> generated(int count) throws Throwable {
+        Path[] generated = new Path[count];
+
+        for (int i = 0; i < count; i++) {
+            Waypoint[] waypoints = Corpus.random(20, 8.0 + i, 4.0);
+            PathResults results = Targets.generate(waypoints);
+            var leftRight = (BetterArrayList<?>) Targets.LEFT_RIGHT.invokeExact(results, Corpus.ROBOT_TRK_WIDTH, 0);
+
+            Path path = new Path();
+            path.clickPoints.addAll(List.of(waypoints));
+            path.pathPoints.addAll(waypoints((BetterArrayList<?>) Targets.CONVERT_RESULTS.invokeExact(results)));
+            path.leftPoints.addAll(waypoints((BetterArrayList<?>) leftRight.get(0)));
+            path.rightPoints.addAll(waypoints((BetterArrayList<?>) leftRight.get(1)));
+            generated[i] = path;
+        }
+
+        return List.of(generated);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static BetterArrayList<Waypoint> waypoints(BetterArrayList<?> list) {
+        return (BetterArrayList<Waypoint>) list;
+    }
+}
@@ -0,0 +1,62 @@
+package bench;
+
+import util.BetterArrayList;
+import util.Path;
+import util.PathResults;
+import util.Waypoint;
+
+import java.awt.Point;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+
+import static java.lang.invoke.MethodType.methodType;
+
+/**
+ * Handles to the generator classes, which are in the default package and so can't be named from here. JMH won't take benchmarks in the
+ * default package, so the benchmarks go through these instead. Every handle is adapted to Object for the default package types so that it
+ * can be called with invokeExact, which the JIT inlines the same as a direct call.
+ */
+final class Targets {
+    // (Waypoint[]) -> PathGen2D
+    static final MethodHandle GENERATE;
+    // (PathGen2D) -> PathResults
+    static final MethodHandle RESULTS;
+    // (PathResults, robotTrkWidth, from) -> the left and right points
+    static final MethodHandle LEFT_RIGHT;
+    // (PathResults) -> the path points
+    static final MethodHandle CONVERT_RESULTS;
+    // (Path, Point, xScale, yScale) -> the index of the clicked point or -1
+    static final MethodHandle FIND_CLICKED_POINT;
+    // () -> void, empties the solved segment cache
+    static final MethodHandle CLEAR_CACHE;
+
+    static {
+        try {
+            Class<?> gen = Class.forName("PathGen2D"), utils = Class.forName("Utils"), cache = Class.forName("SegmentCache");
+            MethodHandles.Lookup genLookup = MethodHandles.privateLookupIn(gen, MethodHandles.lookup());
+            MethodHandles.Lookup utilsLookup = MethodHandles.privateLookupIn(utils, MethodHandles.lookup());
+
+            GENERATE = genLookup.findConstructor(gen, methodType(void.class, Waypoint[].class)).asType(methodType(Object.class,
+                    Waypoint[].class));
+            RESULTS = genLookup.findGetter(gen, "results", PathResults.class).asType(methodType(PathResults.class, Object.class));
+            LEFT_RIGHT = genLookup.findStatic(gen, "leftRight", methodType(BetterArrayList.class, PathResults.class, double.class,
+                    int.class));
+            CONVERT_RESULTS = utilsLookup.findStatic(utils, "convertResults", methodType(BetterArrayList.class, PathResults.class));
+            FIND_CLICKED_POINT = utilsLookup.findStatic(utils, "findClickedPoint", methodType(int.class, Path.class, Point.class,
+                    double.class, double.class));
+
+            Object segmentCache = genLookup.findStaticGetter(gen, "CACHE", cache).invoke();
+            CLEAR_CACHE = MethodHandles.privateLookupIn(cache, MethodHandles.lookup()).findVirtual(cache, "clear",
+                    methodType(void.class)).bindTo(segmentCache);
+        } catch (Throwable e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Targets() {
+    }
+
+    static PathResults generate(Waypoint[] waypoints) throws Throwable {
+        return (PathResults) RESULTS.invokeExact((Object) GENERATE.invokeExact(waypoints));
+    }
+}
@@ -0,0 +1,261 @@
+import util.PathResults;
+
+import java.util.Arrays;
+
+/**
+ * Looks up where a Trajectory is by the distance travelled along it rather than by time, for followers that are parameterised by distance.
+ * <p>
+ * Every segment is split into panels of about PANEL_T seconds, and the arc length of each panel is integrated with 5 point Gauss-Legendre
+ * quadrature of the speed, which is far more accurate than adding up the straight lines between samples. A lookup binary searches for the
+ * panel a distance falls in and then solves for the time inside it with a bracketed Newton iteration. A Cursor remembers the panel it was
+ * last in, so a follower that only ever moves forward along the path finds its panel in amortised O(1).
+ */
+public final class ArcLengthIndex {
+    private static final double PANEL_T = 0.05; // Seconds
+    private static final double S_TOL = 1e-9; // ft
+    private static final int MAX_NEWTON_ITERATIONS = 50;
+    // @formatter:off
+    private static final double[] GL_NODES = {
+            0.0, -0.5384693101056831, 0.5384693101056831, -0.9061798459386640, 0.9061798459386640
+    };
+    private static final double[] GL_WEIGHTS = {
+            0.5688888888888889, 0.4786286704993665, 0.4786286704993665, 0.2369268850561891, 0.2369268850561891
+    };
+    // @formatter:on
+
+    private final Trajectory trajectory;
+    // The segment each panel is in and where it starts in that segment's time, with panelStart[panels] being the end of the last one
+    private final int[] panelSegment;
+    private final double[] panelStart;
+    // The index of the first panel of each segment, with firstPanel[segments] being the number of panels
+    private final int[] firstPanel;
+    // The distance along the path at the start of each panel, with panelS[panels] being the length of the path
+    private final double[] panelS;
+
+    public ArcLengthIndex(Trajectory trajectory) {
+        this.trajectory = trajectory;
+
+        this.firstPanel = new int[trajectory.getSegmentCount() + 1];
+        for (int i = 0; i < trajectory.getSegmentCount(); i++) {
+            firstPanel[i + 1] = firstPanel[i] + panelCount(i);
+        }
+
+        int panels = firstPanel[trajectory.getSegmentCount()];
+        this.panelSegment = new int[panels + 1];
+        this.panelStart = new double[panels + 1];
+        this.panelS = new double[panels + 1];
+
+        int p = 0;
+        for (int i = 0; i < trajectory.getSegmentCount(); i++) {
+            int count = panelCount(i);
+            double T = trajectory.getStartTime(i + 1) - trajectory.getStartTime(i);
+
+            for (int k = 0; k < count; k++, p++) {
+                panelSegment[p] = i;
+                panelStart[p] = T * k / count;
+                panelS[p + 1] = panelS[p] + arcLength(i, panelStart[p], T * (k + 1) / count);
+            }
+
+            panelSegment[p] = i;
+            panelStart[p] = T;
+        }
+    }
+
+    /**
+     * @return the length of the path
+     */
+    public double getLength() {
+        return panelS[panelS.length - 1];
+    }
+
+    public Trajectory getTrajectory() {
+        return trajectory;
+    }
+
+    /**
+     * @param s the distance along the path, clamped to [0, getLength()]
+     *
+     * @return the time at which the path is s along
+     */
+    public double timeAt(double s) {
+        if (panelS.length == 1) {
+            return 0.0;
+        }
+
+        s = Utils.constrainTo(s, 0.0, getLength());
+        int index = Arrays.binarySearch(panelS, s);
+
+        return timeIn(index >= 0 ? Math.min(index, panelS.length - 2) : -index - 2, s);
+    }
+
+    /**
+     * @param s the distance along the path, clamped to [0, getLength()]
+     *
+     * @return the state of the path s along it
+     */
+    public Trajectory.State stateAt(double s) {
+        return trajectory.stateAt(timeAt(s));
+    }
+
+    /**
+     * @param t the time since the start of the path, clamped to [0, the duration of the path]
+     *
+     * @return the distance along the path at t
+     */
+    public double arcLengthTo(double t) {
+        if (panelS.length == 1) {
+            return 0.0;
+        }
+
+        t = Utils.constrainTo(t, 0.0, trajectory.getDuration());
+        int segment = trajectory.segmentAt(t);
+        double local = t - trajectory.getStartTime(segment);
+
+        int p = Arrays.binarySearch(panelStart, firstPanel[segment], firstPanel[segment + 1], local);
+        p = p >= 0 ? p : -p - 2;
+
+        return panelS[p] + arcLength(segment, panelStart[p], local);
+    }
+
+    /**
+     * @return a new cursor at the start of the path
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Samples the path every ds along it, plus its very end.
+     *
+     * @param ds the distance between samples, in ft
+     *
+     * @return the samples, with every column filled in and distance being the exact arc length
+     */
+    public PathResults resample(double ds) {
+        int count = (int) Math.floor(getLength() / ds + 1e-9) + 1;
+        boolean endSample = getLength() - (count - 1) * ds > S_TOL;
+        PathResults results = new PathResults(count + 1);
+
+        if (trajectory.getSegmentCount() == 0) {
+            return results;
+        }
+
+        Cursor cursor = cursor();
+        for (int k = 0; k < count + (endSample ? 1 : 0); k++) {
+            // Stepping by index instead of adding up ds's keeps the round off from building up
+            double s = Math.min(k * ds, getLength());
+            Trajectory.State state = trajectory.stateAt(cursor.timeAt(s));
+
+            results.time.add(state.t());
+            results.x.add(state.x());
+            results.y.add(state.y());
+            results.rad.add(state.rad());
+            results.deg.add(Math.toDegrees(state.rad()));
+            results.vel.add(state.vel());
+            results.acc.add(state.acc());
+            results.jerk.add(state.jerk());
+            results.roc.add(state.roc());
+            results.omega.add(state.omega());
+            results.distance.add(s);
+        }
+
+        return results;
+    }
+
+    /**
+     * Looks up distances along the path starting from the panel of the last lookup, which is amortised O(1) for distances that only ever
+     * grow. Going backwards falls back to a binary search. A cursor holds state, so each thread needs its own.
+     */
+    public final class Cursor {
+        private int panel;
+
+        private Cursor() {
+        }
+
+        /**
+         * @param s the distance along the path, clamped to [0, getLength()]
+         *
+         * @return the time at which the path is s along
+         */
+        public double timeAt(double s) {
+            if (panelS.length == 1) {
+                return 0.0;
+            }
+
+            s = Utils.constrainTo(s, 0.0, getLength());
+
+            if (s < panelS[panel]) {
+                int index = Arrays.binarySearch(panelS, 0, panel, s);
+                panel = index >= 0 ? index : -index - 2;
+            }
+
+            while (panel < panelS.length - 2 && s > panelS[panel + 1]) {
+                panel++;
+            }
+
+            return timeIn(panel, s);
+        }
+
+        /**
+         * @param s the distance along the path, clamped to [0, getLength()]
+         *
+         * @return the state of the path s along it
+         */
+        public Trajectory.State stateAt(double s) {
+            return trajectory.stateAt(timeAt(s));
+        }
+    }
+
+    /**
+     * Solves for the time at which the path is s along inside panel p, which has to contain s
+     */
+    private double timeIn(int p, double s) {
+        int segment = panelSegment[p];
+        double lo = panelStart[p], hi = panelSegment[p + 1] == segment ? panelStart[p + 1] : trajectory.getStartTime(segment + 1) -
+                trajectory.getStartTime(segment);
+        double target = s - panelS[p], length = panelS[p + 1] - panelS[p];
+
+        if (length <= S_TOL) {
+            return trajectory.getStartTime(segment) + lo;
+        }
+
+        // Start from where s would be if the speed was constant over the panel
+        double start = lo, t = lo + (hi - lo) * target / length;
+
+        for (int i = 0; i < MAX_NEWTON_ITERATIONS; i++) {
+            double f = arcLength(segment, start, t) - target;
+
+            if (Math.abs(f) <= S_TOL) {
+                break;
+            } else if (f > 0.0) {
+                hi = t;
+            } else {
+                lo = t;
+            }
+
+            // Newton's step is the distance still to go over the speed, but it can't be trusted near a stop so keep it in the bracket
+            double next = t - f / trajectory.speedAt(segment, t);
+            t = next > lo && next < hi ? next : 0.5 * (lo + hi);
+        }
+
+        return trajectory.getStartTime(segment) + t;
+    }
+
+    /**
+     * @return the distance travelled between a and b seconds into the segment
+     */
+    private double arcLength(int segment, double a, double b) {
+        double mid = 0.5 * (a + b), half = 0.5 * (b - a), sum = 0.0;
+
+        for (int i = 0; i < GL_NODES.length; i++) {
+            sum += GL_WEIGHTS[i] * trajectory.speedAt(segment, mid + half * GL_NODES[i]);
+        }
+
+        return sum * half;
+    }
+
+    private int panelCount(int segment) {
+        double T = trajectory.getStartTime(segment + 1) - trajectory.getStartTime(segment);
+        return Math.max(1, (int) Math.ceil(T / PANEL_T - 1e-9));
+    }
+}
@@ -0,0 +1,223 @@
+import util.BetterArrayList;
+import util.GeneratedSegment;
+import util.Path;
+import util.PathResults;
+import util.Waypoint;
+
+import javax.swing.*;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Generates PathGUITool's paths off the EDT. The EDT only snapshots a path's click points when it asks for a generation, and the finished
+ * points are handed back to it to put into the path all at once, so a path being painted is never half updated.
+ * <p>
+ * Each path has at most one generation running and one waiting. Asking again while one is waiting replaces it, so a drag that moves faster
+ * than the path can be generated skips the positions in between instead of queueing up behind them, and the one that's running is cancelled
+ * from inside its T search as soon as a newer one is waiting. Different paths are generated at the same time.
+ * <p>
+ * A preview is a quick generation for while a point is being dragged. It searches for T and samples more coarsely and leaves out the left
+ * and right points, which aren't drawn until the path is generated in full again. How coarse it is adapts to how long the last previews
+ * took, so that one fits in PREVIEW_BUDGET_NANOS and the path keeps up with the cursor no matter how long it is.
+ * <p>
+ * Everything but the worker threads has to be called from the EDT.
+ */
+final class BackgroundGenerator {
+    private static final PathGen2D.TSearch SEARCH = PathGen2D.TSearch.BISECTION;
+    private static final double T_TOLERANCE = 0.01; // Seconds
+    private static final long PREVIEW_BUDGET_NANOS = 16_000_000; // A frame at 60 Hz
+    // Each preview level doubles the T tolerance and the sample stride of the one below it, level 0 is full resolution without the sides
+    private static final int MAX_PREVIEW_LEVEL = 4;
+
+    private final double robotTrkWidth;
+    // Called on the EDT with a path after its points have been replaced
+    private final Consumer<Path> onPublish;
+    private final ExecutorService workers;
+    private final Map<Path, State> states = new IdentityHashMap<>();
+    private final AtomicInteger previewLevel = new AtomicInteger(1);
+
+    /**
+     * The generations of one path. pending is the request that's waiting, and scheduled is true while a worker is looking after the path,
+     * which is what keeps it to one generation at a time. A path gets a new State after it's forgotten, and results for the old one are
+     * thrown away.
+     */
+    private static final class State {
+        final AtomicReference<Request> pending = new AtomicReference<>();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+    }
+
+    /**
+     * A copy of everything the generation reads from the path, taken on the EDT when it was asked for
+     */
+    private record Request(Path path, boolean preview, Path snapshot, BetterArrayList<Waypoint> pathPoints,
+            BetterArrayList<Waypoint> leftPoints, BetterArrayList<Waypoint> rightPoints) {
+    }
+
+    BackgroundGenerator(double robotTrkWidth, Consumer<Path> onPublish) {
+        this.robotTrkWidth = robotTrkWidth;
+        this.onPublish = onPublish;
+
+        // Leave a core for the EDT, the segments of a long path are spread over the common pool anyway
+        this.workers = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), r -> {
+            Thread thread = new Thread(r, "Path generator");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Asks for the path to be generated from its click points as they are now, replacing any generation of it that's still waiting
+     */
+    void generate(Path path) {
+        request(path, false);
+    }
+
+    /**
+     * The same as generate, but only for a preview. The path has to be generated again once it's done being edited
+     */
+    void preview(Path path) {
+        request(path, true);
+    }
+
+    private void request(Path path, boolean preview) {
+        State state = states.computeIfAbsent(path, p -> new State());
+
+        // The click points are edited in place, so the worker gets copies of them
+        Path snapshot = new Path();
+        path.clickPoints.forEach(waypoint -> snapshot.clickPoints.add(new Waypoint(waypoint)));
+        snapshot.segments = path.segments;
+        snapshot.results = path.results;
+
+        state.pending.set(new Request(path, preview, snapshot, path.pathPoints, path.leftPoints, path.rightPoints));
+        if (state.scheduled.compareAndSet(false, true)) {
+            workers.execute(() -> drain(state));
+        }
+    }
+
+    /**
+     * Drops the path's waiting generation and any result still on its way, for when its points are cleared or moved to another path
+     */
+    void forget(Path path) {
+        State state = states.remove(path);
+
+        if (state != null) {
+            state.pending.set(null);
+        }
+    }
+
+    /**
+     * Drops every path's waiting generation and results
+     */
+    void forgetAll() {
+        List.copyOf(states.keySet()).forEach(this::forget);
+    }
+
+    /**
+     * Generates the path's waiting requests one after the other on a worker until there aren't any left
+     */
+    private void drain(State state) {
+        while (true) {
+            Request request = state.pending.getAndSet(null);
+
+            if (request == null) {
+                state.scheduled.set(false);
+
+                // generate may have set pending after the getAndSet but seen scheduled still true, so check once more before leaving
+                if (state.pending.get() == null || !state.scheduled.compareAndSet(false, true)) {
+                    return;
+                }
+
+                continue;
+            }
+
+            int level = request.preview() ? previewLevel.get() : 0;
+            long start = System.nanoTime();
+
+            // A preview that's still inside its budget is let finish, otherwise a drag with events closer together than that would never
+            // show anything until it stopped
+            BooleanSupplier cancelled = request.preview() ?
+                    () -> state.pending.get() != null && System.nanoTime() - start > PREVIEW_BUDGET_NANOS :
+                    () -> state.pending.get() != null;
+
+            try {
+                publish(state, request, new PathGen2D(request.snapshot(), SEARCH, T_TOLERANCE * (1 << level), 1 << level,
+                        ForkJoinPool.commonPool(), cancelled));
+
+                if (request.preview()) {
+                    adaptPreview(level, System.nanoTime() - start);
+                }
+            } catch (CancellationException e) {
+                // A newer request is waiting, which is picked up on the next time around. A cancelled preview ran over its budget
+                if (request.preview()) {
+                    adaptPreview(level, System.nanoTime() - start);
+                }
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Makes the previews coarser if one at level took longer than the budget, and finer if it had plenty of room to spare
+     */
+    private void adaptPreview(int level, long nanos) {
+        if (nanos > PREVIEW_BUDGET_NANOS && level < MAX_PREVIEW_LEVEL) {
+            previewLevel.compareAndSet(level, level + 1);
+        } else if (nanos < PREVIEW_BUDGET_NANOS / 4 && level > 0) {
+            previewLevel.compareAndSet(level, level - 1);
+        }
+    }
+
+    /**
+     * Builds the new point lists on the worker and then swaps them all into the path on the EDT, unless the path was forgotten since
+     */
+    private void publish(State state, Request request, PathGen2D pathGen) {
+        // Only the samples from the first changed segment to the last one are new, the points before and after them are kept. The ones
+        // after have only moved in time and distance, which the points don't hold
+        int from = pathGen.firstChangedSample, kept = pathGen.unchangedTailSamples, to = pathGen.results.size() - kept;
+        BetterArrayList<Waypoint> pathPoints = Utils.patch(request.pathPoints(), from, Utils.convertResults(pathGen.results, from, to),
+                kept);
+        BetterArrayList<Waypoint> leftPoints, rightPoints;
+
+        if (request.preview()) {
+            leftPoints = new BetterArrayList<>();
+            rightPoints = new BetterArrayList<>();
+        } else if (request.leftPoints().size() == request.pathPoints().size() &&
+                request.rightPoints().size() == request.pathPoints().size()) {
+            var lAndR = pathGen.leftRight(robotTrkWidth, from, to);
+            leftPoints = Utils.patch(request.leftPoints(), from, lAndR.get(0), kept);
+            rightPoints = Utils.patch(request.rightPoints(), from, lAndR.get(1), kept);
+        } else {
+            // A preview before this one left the sides out, so they're all done again
+            var lAndR = pathGen.leftRight(robotTrkWidth);
+            leftPoints = lAndR.get(0);
+            rightPoints = lAndR.get(1);
+        }
+        BetterArrayList<GeneratedSegment> segments = pathGen.segments;
+        PathResults results = pathGen.results;
+
+        SwingUtilities.invokeLater(() -> {
+            Path path = request.path();
+            if (states.get(path) != state) {
+                return;
+            }
+
+            path.pathPoints = pathPoints;
+            path.leftPoints = leftPoints;
+            path.rightPoints = rightPoints;
+            path.segments = segments;
+            path.results = results;
+            onPublish.accept(path);
+        });
+    }
+}
@@ -1,12 +1,20 @@
 import util.Path;
+import util.PathShapes;
 
 import java.awt.*;
-import java.awt.geom.Ellipse2D;
 import java.awt.geom.Line2D;
+import java.awt.geom.Rectangle2D;
 import java.text.DecimalFormat;
 import java.util.LinkedHashMap;
 
 public final class GraphicsUtils {
+    private static final Stroke GRID_STROKE = new BasicStroke(1f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND, 1f, new float[]{5f}, 0f);
+    // The dots on the click points are drawn as zero length lines with round caps, which are circles as wide as the stroke
+    private static final Stroke CLICK_DOT = new BasicStroke(6f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+    // The generated points are close enough together that their dots run into each other, so they're drawn as one wide line instead
+    private static final Stroke POINT_BAND = new BasicStroke(4f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+    private static final int BOUNDS_PAD = 4; // Pixels, half of the widest stroke plus a pixel for anti-aliasing
+
     /**
      * This function draws the numbers and ticks along the y-axis and the horizontal light gray lines.
      *
@@ -29,10 +37,11 @@ public final class GraphicsUtils {
 
         // Iterates through each number from 0 to the max length of the y-axis in feet and draws the horizontal grid lines for each
         // iteration except the last one
+        DecimalFormat format = new DecimalFormat("#.#");
+        FontMetrics fm = p.getFontMetrics(p.getFont());
         for (int i = 0; i <= upperY_tick; i++) {
             // calculate width of number for proper drawing
-            String number = new DecimalFormat("#.#").format(upperY_tick - i);
-            FontMetrics fm = p.getFontMetrics(p.getFont());
+            String number = format.format(upperY_tick - i);
             int width = fm.stringWidth(number);
 
             // Draws a tick line and the corresponding number at that value in black
@@ -46,7 +55,7 @@ public final class GraphicsUtils {
 
                 // Sets the color and stroke to light gray dashes and draws them all the way across to the right field edge
                 g2.setColor(Color.lightGray);
-                g2.setStroke(new BasicStroke(1f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND, 1f, new float[]{5f}, 0f));
+                g2.setStroke(GRID_STROKE);
                 g2.draw(new Line2D.Double(xTickXMin, y0, xTickXMax, y0));
 
                 g2.setColor(tempC);
@@ -79,10 +88,11 @@ public final class GraphicsUtils {
 
         // Iterates through each number from 0 to the max length of the x-axis in feet and draws the horizontal grid lines for each
         // iteration except the last one
+        DecimalFormat format = new DecimalFormat("#.#");
+        FontMetrics fm = p.getFontMetrics(p.getFont());
         for (int i = 0; i <= upperX_tick; i++) {
             // calculate width of number for proper drawing
-            String number = new DecimalFormat("#.#").format(i);
-            FontMetrics fm = p.getFontMetrics(p.getFont());
+            String number = format.format(i);
             int width = fm.stringWidth(number);
 
             // Draws a tick line and the corresponding number at that value in black
@@ -96,7 +106,7 @@ public final class GraphicsUtils {
 
                 // Sets the color and stroke to light gray dashes and draws them all the way down to the x-axis
                 g2.setColor(Color.lightGray);
-                g2.setStroke(new BasicStroke(1f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND, 1f, new float[]{5f}, 0f));
+                g2.setStroke(GRID_STROKE);
                 g2.draw(new Line2D.Double(x0, yTickYMin, x0, yTickYMax));
 
                 g2.setColor(tempC);
@@ -109,59 +119,75 @@ public final class GraphicsUtils {
 
     /**
      * This is the function that plots everything in a path, so clickPoints (if applicable), pathSegPoints, leftPoints, and rightPoints. It
-     * draws a circle of radius 2 pixels around each non-clicked point and a circle of radius 3 around each clicked point. This is why a
-     * path may appear to be crossing a field element, when in reality it is not because the edge of the robot ends at the value of the
-     * point. This function also draws a line between each point to show that they are all connected in the same path.
+     * draws the non-clicked points as a line 4 pixels wide, which covers a circle of radius 2 pixels around each of them, and a circle of
+     * radius 3 around each clicked point. This is why a path may appear to be crossing a field element, when in reality it is not because
+     * the edge of the robot ends at the value of the point. This function also draws a line between each clicked point to show that they
+     * are all connected in the same path. The shapes are kept in the path between repaints by PathShapes, so each set of points is one
+     * draw call.
      *
      * @param g2   the 2D graphics object used to draw everything
      * @param path the path to draw/plot
      */
     private static void plotPath(Graphics2D g2, Path path, double xOff, double xScale, double yOff, double yScale) {
-        // Draw clicked points
-        if (path.clickPoints.size() > 1) {
-            for (int j = 0; j < path.clickPoints.size() - 1; j++) {
-                double x1 = xOff + xScale * path.clickPoints.get(j).getX(), y1 = yOff - yScale * path.clickPoints.get(j).getY();
-                double x2 = xOff + xScale * path.clickPoints.get(j + 1).getX(), y2 = yOff - yScale * path.clickPoints.get(j + 1).getY();
-
-                g2.setPaint(Color.magenta);
-                g2.draw(new Line2D.Double(x1, y1, x2, y2));
-                g2.fill(new Ellipse2D.Double(x1 - 3, y1 - 3, 6, 6));
-                g2.fill(new Ellipse2D.Double(x2 - 3, y2 - 3, 6, 6));
-            }
-        } else if (path.clickPoints.size() == 1) {
-            double x1 = xOff + xScale * path.clickPoints.get(0).getX(), y1 = yOff - yScale * path.clickPoints.get(0).getY();
+        PathShapes shapes = PathShapes.of(path, xOff, xScale, yOff, yScale);
 
-            g2.setPaint(Color.magenta);
-            g2.fill(new Ellipse2D.Double(x1 - 3, y1 - 3, 6, 6));
+        // Most repaints only cover the bit of the field that an edit changed, so most paths can be skipped
+        Rectangle clip = g2.getClipBounds(), bounds = pad(shapes.bounds());
+        if (bounds == null || (clip != null && !clip.intersects(bounds))) {
+            return;
         }
 
-        // Draw all the pathPoints, leftPoints and rightPoints
-        if (path.pathPoints.size() > 0) {
-            for (int j = 0; j < path.pathPoints.size() - 1; j++) {
-                double x1 = xOff + xScale * path.pathPoints.get(j).getX(), y1 = yOff - yScale * path.pathPoints.get(j).getY();
-                double x2 = xOff + xScale * path.pathPoints.get(j + 1).getX(), y2 = yOff - yScale * path.pathPoints.get(j + 1).getY();
-
-                g2.setPaint(Color.green);
-                g2.draw(new Line2D.Double(x1, y1, x2, y2));
-                g2.fill(new Ellipse2D.Double(x1 - 2, y1 - 2, 4, 4));
-                g2.fill(new Ellipse2D.Double(x2 - 2, y2 - 2, 4, 4));
-
-                double lx1 = xOff + xScale * path.leftPoints.get(j).getX(), ly1 = yOff - yScale * path.leftPoints.get(j).getY();
-                double lx2 = xOff + xScale * path.leftPoints.get(j + 1).getX(), ly2 = yOff - yScale * path.leftPoints.get(j + 1).getY();
-                double rx1 = xOff + xScale * path.rightPoints.get(j).getX(), ry1 = yOff - yScale * path.rightPoints.get(j).getY();
-                double rx2 = xOff + xScale * path.rightPoints.get(j + 1).getX(), ry2 = yOff - yScale * path.rightPoints.get(j + 1).getY();
-
-                g2.setPaint(Color.gray);
-                g2.draw(new Line2D.Double(lx1, ly1, lx2, ly2));
-                g2.fill(new Ellipse2D.Double(lx1 - 2, ly1 - 2, 4, 4));
-                g2.fill(new Ellipse2D.Double(lx2 - 2, ly2 - 2, 4, 4));
-
-                g2.setPaint(Color.lightGray);
-                g2.draw(new Line2D.Double(rx1, ry1, rx2, ry2));
-                g2.fill(new Ellipse2D.Double(rx1 - 2, ry1 - 2, 4, 4));
-                g2.fill(new Ellipse2D.Double(rx2 - 2, ry2 - 2, 4, 4));
-            }
+        Stroke tempS = g2.getStroke();
+        Object tempControl = g2.getRenderingHint(RenderingHints.KEY_STROKE_CONTROL);
+
+        // Draw clicked points. Pure stroke control keeps the dots where the filled circles they stand in for would be
+        g2.setPaint(Color.magenta);
+        g2.draw(shapes.clickLine);
+        g2.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+        g2.setStroke(CLICK_DOT);
+        g2.draw(shapes.clickDots);
+
+        // Draw all the pathPoints, leftPoints and rightPoints. A preview has no left and right points, so only its center is drawn
+        g2.setStroke(POINT_BAND);
+        g2.setPaint(Color.green);
+        g2.draw(shapes.center);
+
+        if (path.leftPoints.size() == path.pathPoints.size()) {
+            g2.setPaint(Color.gray);
+            g2.draw(shapes.left);
+            g2.setPaint(Color.lightGray);
+            g2.draw(shapes.right);
+        }
+
+        g2.setStroke(tempS);
+        g2.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, tempControl);
+    }
+
+    /**
+     * @return the area of the panel that the path was drawn over the last time it was plotted, or null if nothing was drawn
+     */
+    public static Rectangle drawnBounds(Path path) {
+        return path.shapes == null ? null : pad(path.shapes.bounds());
+    }
+
+    /**
+     * @return the area of the panel that the path will be drawn over when it's next plotted, or null if there's nothing to draw
+     */
+    public static Rectangle bounds(Path path, double xOff, double xScale, double yOff, double yScale) {
+        return pad(PathShapes.of(path, xOff, xScale, yOff, yScale).bounds());
+    }
+
+    /**
+     * @return the bounds grown by the widest stroke and a pixel of anti-aliasing, rounded out to whole pixels
+     */
+    private static Rectangle pad(Rectangle2D bounds) {
+        if (bounds == null) {
+            return null;
         }
+
+        Rectangle padded = bounds.getBounds();
+        padded.grow(BOUNDS_PAD, BOUNDS_PAD);
+        return padded;
     }
 
     /**
@@ -0,0 +1,55 @@
+import util.FastMath;
+import util.PathOffsets;
+import util.PathResults;
+
+/**
+ * Picks between the scalar sampling and offset kernels and the vectorized ones in VectorKernels once at startup. The scalar kernels are the
+ * default. The vectorized kernels are only used when they're asked for with -Dpathgen.vector=true, the JVM was started with --add-modules
+ * jdk.incubator.vector and a vector holds at least MIN_LANES doubles on this hardware, so turn them on where GenerationBenchmark shows they
+ * pay off. Both give bit for bit the same results. This class must not touch jdk.incubator.vector itself, so that it still loads without
+ * the module.
+ * <p>
+ * -Dpathgen.fastMath=true is only implemented in the scalar kernels, so it keeps them picked even with -Dpathgen.vector=true.
+ */
+final class Kernels {
+    private static final int MIN_LANES = 4; // Narrower vectors aren't worth the overhead of the Vector API
+    static final boolean VECTORIZED = detect();
+
+    private Kernels() {
+    }
+
+    private static boolean detect() {
+        if (!Boolean.getBoolean("pathgen.vector") || FastMath.ENABLED || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return false;
+        }
+
+        try {
+            return VectorKernels.lanes() >= MIN_LANES;
+        } catch (LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * @see QuinticPolynomial#sample(QuinticPolynomial, QuinticPolynomial, double, int, PathResults)
+     */
+    static double sample(QuinticPolynomial xqp, QuinticPolynomial yqp, double stepsPerSecond, int count, PathResults results) {
+        if (VECTORIZED) {
+            return VectorKernels.sample(xqp, yqp, stepsPerSecond, count, results);
+        }
+
+        return QuinticPolynomial.sample(xqp, yqp, stepsPerSecond, count, results);
+    }
+
+    /**
+     * @see PathOffsets#offset(PathResults, int, int, double[], double[], double[][], double[][], double[][])
+     */
+    static void offset(PathResults results, int from, int to, double[] forward, double[] lateral, double[][] x, double[][] y,
+            double[][] v) {
+        if (VECTORIZED) {
+            VectorKernels.offset(results, from, to, forward, lateral, x, y, v);
+        } else {
+            PathOffsets.offset(results, from, to, forward, lateral, x, y, v);
+        }
+    }
+}
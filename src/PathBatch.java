@@ -0,0 +1,247 @@
+import util.PathFile;
+import util.PathResults;
+import util.Waypoint;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Regenerates every path in a set of saved path files or waypoint arrays without the GUI, for building the paths on a machine with no
+ * display. Each path is generated on its own task in a fixed size pool, and its center, left and right points are written to CSV files in
+ * the output directory. Nothing in here touches java.awt, so it runs fine in a headless container.
+ * <p>
+ * Usage: java PathBatch [--out dir] [--threads n] [--width ft] [--profile maxWheelVel,maxAccel,maxCentripetalAccel] file...
+ * <br>
+ * or: java PathBatch --convert file.txt...
+ * <p>
+ * With --profile, each path is re-timed by a VelocityProfile with the given limits in ft/s and ft/s^2 before it's written, so the samples
+ * are PROFILE_DS apart along the path instead of 0.01 s apart in time, neither wheel goes faster than maxWheelVel and no waypoint is passed
+ * faster than its speed.
+ * <p>
+ * A file can be one saved by PathGUITool, in either the PathFile format or the Object stream one from before it, or text with Waypoint
+ * arrays in it like the ones copied out of PathGUITool or PathGen2D.main.
+ * <p>
+ * --convert doesn't generate anything, it rewrites Object stream saves in the PathFile format, next to the original with PathFile.EXTENSION
+ * in place of .txt.
+ */
+public final class PathBatch {
+    // The same track width PathGUITool generates with
+    private static final double DEFAULT_ROBOT_TRK_WIDTH = 1.744792; // ft
+    private static final double T_TOLERANCE = 0.01; // Seconds, the same as PathGUITool
+    private static final double PROFILE_DS = 0.05; // ft, the distance between the samples of a re-timed path
+    private static final int STREAM_MAGIC = 0xACED; // The first 2 bytes of everything written by an ObjectOutputStream, the old saves
+
+    // @formatter:off
+    private static final String NUMBER = "\\s*([-+0-9.eE]+|NaN|-?Infinity)\\s*";
+    private static final Pattern ARRAY = Pattern.compile(
+            "Waypoint\\s*\\[\\s*]\\s*(\\w+)\\s*=\\s*new\\s+Waypoint\\s*\\[\\s*]\\s*\\{(.*?)}\\s*;", Pattern.DOTALL);
+    private static final Pattern WAYPOINT = Pattern.compile(
+            "new\\s+Waypoint\\s*\\(" + NUMBER + "," + NUMBER + ",\\s*(?:Math\\.toRadians\\(" + NUMBER + "\\)|" + NUMBER + ")\\s*," +
+                    NUMBER + "," + NUMBER + "\\)");
+    // @formatter:on
+
+    private record Job(String name, Waypoint[] waypoints) {
+    }
+
+    private record Done(String name, int segments, int samples, long generateNanos, long writeNanos) {
+    }
+
+    private PathBatch() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Path out = Paths.get("paths");
+        int threads = Runtime.getRuntime().availableProcessors();
+        double robotTrkWidth = DEFAULT_ROBOT_TRK_WIDTH;
+        double[] limits = null;
+        boolean convert = false;
+        List<Path> files = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--out" -> out = Paths.get(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--width" -> robotTrkWidth = Double.parseDouble(args[++i]);
+                case "--profile" -> limits = Arrays.stream(args[++i].split(",")).mapToDouble(Double::parseDouble).toArray();
+                case "--convert" -> convert = true;
+                default -> files.add(Paths.get(args[i]));
+            }
+        }
+
+        if (convert && !files.isEmpty()) {
+            for (Path file : files) {
+                convert(file);
+            }
+            return;
+        }
+
+        List<Job> jobs = new ArrayList<>();
+        for (Path file : files) {
+            jobs.addAll(read(file));
+        }
+
+        if (jobs.isEmpty() || (limits != null && limits.length != 3)) {
+            System.err.println("Usage: java PathBatch [--out dir] [--threads n] [--width ft] " +
+                    "[--profile maxWheelVel,maxAccel,maxCentripetalAccel] file...");
+            System.err.println("   or: java PathBatch --convert file.txt...");
+            System.exit(2);
+        }
+
+        VelocityProfile profile = limits == null ? null : new VelocityProfile(limits[0], limits[1], limits[2], robotTrkWidth);
+
+        Files.createDirectories(out);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Done>> futures = new ArrayList<>(jobs.size());
+        long start = System.nanoTime();
+
+        for (Job job : jobs) {
+            Path dir = out;
+            double width = robotTrkWidth;
+            futures.add(pool.submit(() -> generate(job, dir, width, profile)));
+        }
+
+        int failed = 0;
+        long samples = 0, busyNanos = 0;
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                Done done = futures.get(i).get();
+                samples += done.samples();
+                busyNanos += done.generateNanos() + done.writeNanos();
+                System.out.printf("%-40s %4d segments %7d samples  generated in %8.2f ms, written in %8.2f ms\n", done.name(),
+                        done.segments(), done.samples(), done.generateNanos() / 1e6, done.writeNanos() / 1e6);
+            } catch (ExecutionException e) {
+                failed++;
+                System.out.printf("%-40s failed: %s\n", jobs.get(i).name(), e.getCause());
+            }
+        }
+
+        pool.shutdown();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d paths (%d failed) on %d threads in %.3f s: %.1f paths/s, %.0f samples/s, %.1fx parallel speedup\n",
+                jobs.size(), failed, threads, seconds, (jobs.size() - failed) / seconds, samples / seconds, busyNanos / 1e9 / seconds);
+
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Generates a path and writes its center, left and right points to name.center.csv, name.left.csv and name.right.csv in dir
+     *
+     * @param profile the profile to re-time the path with, or null to keep the quintics' timing
+     */
+    private static Done generate(Job job, Path dir, double robotTrkWidth, VelocityProfile profile) throws IOException {
+        long start = System.nanoTime();
+        PathGen2D gen = new PathGen2D(job.waypoints(), PathGen2D.TSearch.BISECTION, T_TOLERANCE, null);
+        PathResults results = gen.results;
+
+        if (profile != null) {
+            results = profile.profile(new ArcLengthIndex(gen.getTrajectory()), PROFILE_DS, job.waypoints());
+        }
+
+        int n = results.size();
+        double[][] x = new double[2][n], y = new double[2][n], v = new double[2][n];
+        Kernels.offset(results, 0, n, null, new double[]{robotTrkWidth / 2.0, -robotTrkWidth / 2.0}, x, y, v);
+        long generated = System.nanoTime();
+
+        String file = job.name().replaceAll("[^A-Za-z0-9._-]", "_");
+        try (BufferedWriter w = Files.newBufferedWriter(dir.resolve(file + ".center.csv"))) {
+            w.write("time,x,y,heading,vel,acc,jerk,roc,omega,distance\n");
+            for (int i = 0; i < n; i++) {
+                w.write(results.time.get(i) + "," + results.x.get(i) + "," + results.y.get(i) + "," + results.rad.get(i) + "," +
+                        results.vel.get(i) + "," + results.acc.get(i) + "," + results.jerk.get(i) + "," + results.roc.get(i) + "," +
+                        results.omega.get(i) + "," + results.distance.get(i) + "\n");
+            }
+        }
+
+        String[] sides = {"left", "right"};
+        for (int k = 0; k < sides.length; k++) {
+            try (BufferedWriter w = Files.newBufferedWriter(dir.resolve(file + "." + sides[k] + ".csv"))) {
+                w.write("time,x,y,heading,vel,acc\n");
+                for (int i = 0; i < n; i++) {
+                    w.write(results.time.get(i) + "," + x[k][i] + "," + y[k][i] + "," + results.rad.get(i) + "," + v[k][i] + "," +
+                            results.acc.get(i) + "\n");
+                }
+            }
+        }
+
+        return new Done(job.name(), gen.segments.size(), n, generated - start, System.nanoTime() - generated);
+    }
+
+    /**
+     * Writes an Object stream save out again in the PathFile format, generated points and all
+     */
+    private static void convert(Path file) throws IOException {
+        Path converted = file.resolveSibling(file.getFileName().toString().replaceFirst("\\.[^.]*$", "") + "." + PathFile.EXTENSION);
+        PathFile.Contents contents = PathFile.readSerialized(file.toFile());
+
+        PathFile.write(converted.toFile(), contents.currentPath(), contents.paths(), true);
+        System.out.printf("%s (%d bytes) -> %s (%d bytes)\n", file, Files.size(file), converted, Files.size(converted));
+    }
+
+    /**
+     * @return a job for every path in the file with at least 2 waypoints, named after the file and the path
+     */
+    private static List<Job> read(Path file) throws IOException {
+        String stem = file.getFileName().toString().replaceFirst("\\.[^.]*$", "");
+        Map<String, Waypoint[]> paths = new LinkedHashMap<>();
+
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            in.mark(2);
+            boolean serialized = (in.read() << 8 | in.read()) == STREAM_MAGIC;
+            in.reset();
+
+            if (serialized || PathFile.isPathFile(file.toFile())) {
+                PathFile.Contents contents = serialized ? PathFile.readSerialized(file.toFile()) : PathFile.read(file.toFile());
+                paths.put("current", contents.currentPath().clickPoints.toArray(Waypoint[]::new));
+                contents.paths().forEach((name, path) -> paths.put(name, path.clickPoints.toArray(Waypoint[]::new)));
+            } else {
+                Matcher array = ARRAY.matcher(new String(in.readAllBytes()));
+                while (array.find()) {
+                    paths.put(array.group(1), parseWaypoints(array.group(2)));
+                }
+            }
+        }
+
+        List<Job> jobs = new ArrayList<>();
+        paths.forEach((name, waypoints) -> {
+            if (waypoints.length >= 2) {
+                jobs.add(new Job(stem + "-" + name, waypoints));
+            } else {
+                System.err.println("Skipping " + stem + "-" + name + ", it has fewer than 2 waypoints");
+            }
+        });
+
+        return jobs;
+    }
+
+    private static Waypoint[] parseWaypoints(String body) {
+        List<Waypoint> waypoints = new ArrayList<>();
+        Matcher m = WAYPOINT.matcher(body);
+
+        while (m.find()) {
+            double rad = m.group(3) != null ? Math.toRadians(Double.parseDouble(m.group(3))) : Double.parseDouble(m.group(4));
+            waypoints.add(new Waypoint(Double.parseDouble(m.group(1)), Double.parseDouble(m.group(2)), rad, Double.parseDouble(m.group(5)),
+                    Double.parseDouble(m.group(6))));
+        }
+
+        return waypoints.toArray(Waypoint[]::new);
+    }
+}
@@ -1,5 +1,7 @@
+import util.EditJournal;
 import util.FieldGenerator;
 import util.Path;
+import util.PathFile;
 import util.PointMarker;
 import util.Waypoint;
 
@@ -12,9 +14,11 @@ import java.awt.datatransfer.StringSelection;
 import java.awt.datatransfer.Transferable;
 import java.awt.event.*;
 import java.awt.geom.Line2D;
+import java.awt.image.BufferedImage;
 import java.io.*;
 import java.util.Calendar;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -29,8 +33,10 @@ import java.util.Map;
 public final class PathGUITool extends JPanel implements ClipboardOwner {
     // An object of this class, used for the Ctrl + C code
     private static PathGUITool fig;
+    private static final double FIELD_X_MAX = 54.0, FIELD_Y_MAX = 27.0; // ft
 
     private final double borderSize = 30;
+    private final double robotTrkWidth = 1.744792;
     private final FieldGenerator fieldGen = new FieldGenerator();
     // The JFrame for this GUI. It actually displays the window
     private final JFrame g = new JFrame("Path GUI Tool");
@@ -39,6 +45,11 @@ public final class PathGUITool extends JPanel implements ClipboardOwner {
     // Path for storing the Ctrl + Z'd points
     private final Path redoBuffer = new Path();
     private final Path currentPath = new Path();
+    // Where every edit to the click points is journaled, so a crash doesn't lose the session
+    private final File journalDir = new File(System.getProperty("user.home"), ".pathguitool");
+    private final EditJournal journal;
+    // Generates the paths off the EDT, repainting a path whenever it's done
+    private final BackgroundGenerator generator = new BackgroundGenerator(robotTrkWidth, this::repaintPath);
     /**
      * doubles for storing important values, xScale and yScale are the values for pixels per foot for each axis, respectively, yTickYMax and
      * Min are the max and min values of the y-axis in pixels, rectWidth and Height are the width and height of the field border in pixels,
@@ -49,6 +60,10 @@ public final class PathGUITool extends JPanel implements ClipboardOwner {
     private int height;
     // A class to store the values necessary to move a clicked point in paths
     private PointMarker moveFlag = PointMarker.DEFAULT;
+    // The axes, grid and field as of the last time the panel changed size
+    private BufferedImage background;
+    // The path that a point is being dragged on, which only gets previews until the mouse is released
+    private Path dragged;
 
     /**
      * Constructor.
@@ -96,6 +111,9 @@ public final class PathGUITool extends JPanel implements ClipboardOwner {
         menuItem.addActionListener(ml);
         menu.add(menuItem);
 
+        // Recover the session first, so that no edits can come in before the journal is ready for them
+        journal = openJournal();
+
         // Set the properties of this JFrame
         g.add(this);
         g.setJMenuBar(menuBar);
@@ -114,28 +132,55 @@ public final class PathGUITool extends JPanel implements ClipboardOwner {
     }
 
     /**
-     * Main function
+     * Main function. The GUI is built on the EDT, since recovering the session in the constructor generates paths, and BackgroundGenerator
+     * has to be called from the EDT
      */
     public static void main(String[] args) {
-        fig = new PathGUITool();
+        SwingUtilities.invokeLater(() -> fig = new PathGUITool());
     }
 
     /**
-     * This function removes the most recent update to the current path and adds it to a buffer. It checks if the current path is not empty
-     * then removes any empty path segments from (ex.) incomplete mode switching, then checks if the new most recent path segment has any
-     * path points. If this is the first time undo has been called since the last path update, or if the buffer is empty, it adds a new path
-     * segment to the buffer. Then it checks if the (new) most recent path segment is drawn and if it is it removes the last point in the
-     * center path from the current path and adds them to the buffer. If the most recent path is not drawn, it removes the last clicked
+     * Offers to recover the session that was left in the journal if the program didn't exit normally last time, and then starts journaling
+     * this session. If the journal can't be opened, like when another instance of the program has it open, the program still works, just
+     * without crash recovery.
+     */
+    private EditJournal openJournal() {
+        try {
+            EditJournal opened = EditJournal.open(journalDir, new EditJournal.Session(currentPath, paths, redoBuffer),
+                    () -> JOptionPane.showConfirmDialog(null, "Recover the unsaved session from last time?", "Session Recovery",
+                            JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION);
+
+            // Only the click points are journaled, so generate everything else again
+            genPath(currentPath);
+            paths.values().forEach(this::genPath);
+
+            return opened;
+        } catch (IOException e) {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(null, "The session journal couldn't be opened, so this session won't be recovered after a " +
+                    "crash.\n" + e.getMessage(), "Session Recovery", JOptionPane.WARNING_MESSAGE);
+            return EditJournal.disabled();
+        }
+    }
+
+    /**
+     * This function removes the most recent update to the current path and adds it to a buffer. It checks if the current path has any click
+     * points then removes any empty path segments from (ex.) incomplete mode switching, then checks if the new most recent path segment has
+     * any path points. If this is the first time undo has been called since the last path update, or if the buffer is empty, it adds a new
+     * path segment to the buffer. Then it checks if the (new) most recent path segment is drawn and if it is it removes the last point in
+     * the center path from the current path and adds them to the buffer. If the most recent path is not drawn, it removes the last clicked
      * point and then regenerates the path. If the new path is valid it stays like that, otherwise if the new path is invalid, it does not
      * let you undo anymore until you fix that issue. Finally, it clears any newly created empty paths, repaints the GUI and sets the
      * previous mode to Undo.
      */
     private void undo() {
-        if (currentPath.isNotEmpty()) {
+        // Not isNotEmpty, since the generated points of the last click point stay around until the background generation replaces them
+        if (!currentPath.clickPoints.isEmpty()) {
             redoBuffer.clickPoints.add(currentPath.clickPoints.removeLast());
+            journal.undo();
             genPath(currentPath);
             outputRedoBuffer();
-            fig.repaint();
+            repaintPath(currentPath);
         } else {
             JOptionPane.showConfirmDialog(g, "No More Undos!", "Undo Status", JOptionPane.DEFAULT_OPTION);
         }
@@ -151,12 +196,13 @@ public final class PathGUITool extends JPanel implements ClipboardOwner {
      * repaints the GUI and sets the previous mode to Redo.
      */
     private void redo() {
-        if (redoBuffer.isNotEmpty()) {
+        if (!redoBuffer.clickPoints.isEmpty()) {
             outputRedoBuffer();
             currentPath.clickPoints.add(redoBuffer.clickPoints.removeLast());
+            journal.redo();
             outputRedoBuffer();
             genPath(currentPath);
-            fig.repaint();
+            repaintPath(currentPath);
         } else {
             JOptionPane.showConfirmDialog(g, "No More Redos!", "Redo Status", JOptionPane.DEFAULT_OPTION);
         }
@@ -169,9 +215,11 @@ public final class PathGUITool extends JPanel implements ClipboardOwner {
         if (currentPath.isNotEmpty() || !paths.isEmpty()) {
             if (JOptionPane.showConfirmDialog(g, "Are you sure you want to clear everything?", "Window Clearer",
                     JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION) {
+                generator.forgetAll();
                 currentPath.clear();
                 paths.clear();
                 redoBuffer.clear();
+                journal.clear();
                 moveFlag = PointMarker.DEFAULT;
                 fig.repaint();
             }
@@ -194,32 +242,37 @@ public final class PathGUITool extends JPanel implements ClipboardOwner {
     /**
      * This function saves the points in each path to a file in proper Java 2D array syntax. It checks if any paths are not empty and if so,
      * it saves those points to a file, otherwise it lets the user know that they cannot save nothing.
+     *
+     * @return whether the points were written to a file, false if there weren't any, the user cancelled or the write failed
      */
-    private void save() {
+    private boolean save() {
         if (currentPath.isNotEmpty() || !paths.isEmpty()) {
             Calendar c = Calendar.getInstance();
             JFileChooser jfc = new JFileChooser();
-            jfc.setFileFilter(new FileNameExtensionFilter("Text Files", "txt", "TXT"));
-            jfc.setSelectedFile(new File(String.format("%tB%te%tY-%tH%tM%tS.txt", c, c, c, c, c, c)));
+            jfc.setFileFilter(new FileNameExtensionFilter("Path Files", PathFile.EXTENSION));
+            jfc.setSelectedFile(new File(String.format("%tB%te%tY-%tH%tM%tS.%s", c, c, c, c, c, c, PathFile.EXTENSION)));
 
             if (jfc.showSaveDialog(g) == JFileChooser.APPROVE_OPTION) {
                 String fileAbsPath = jfc.getSelectedFile().getAbsolutePath();
-                if (!fileAbsPath.endsWith(".txt") && !fileAbsPath.endsWith(".TXT")) {
-                    fileAbsPath += ".txt";
+                if (!fileAbsPath.toLowerCase().endsWith("." + PathFile.EXTENSION)) {
+                    fileAbsPath += "." + PathFile.EXTENSION;
                 }
 
-                try (var oos = new ObjectOutputStream(new FileOutputStream(fileAbsPath))) {
-                    oos.writeObject(currentPath);
-                    oos.writeObject(paths);
-                    oos.flush();
+                try {
+                    PathFile.write(new File(fileAbsPath), currentPath, paths, true);
                     JOptionPane.showConfirmDialog(g, "Points Saved Successfully!", "Points Saver", JOptionPane.DEFAULT_OPTION);
+                    return true;
                 } catch (IOException e) {
                     e.printStackTrace();
+                    JOptionPane.showMessageDialog(g, "Couldn't save the points: " + e.getMessage(), "Points Saver",
+                            JOptionPane.ERROR_MESSAGE);
                 }
             }
         } else {
             JOptionPane.showMessageDialog(g, "You cannot save nothing!", "Points Saver", JOptionPane.ERROR_MESSAGE);
         }
+
+        return false;
     }
 
     /**
@@ -228,32 +281,72 @@ public final class PathGUITool extends JPanel implements ClipboardOwner {
      */
     private void open() {
         JFileChooser jfc = new JFileChooser();
-        jfc.setFileFilter(new FileNameExtensionFilter("Text Files", "txt", "TXT"));
+        jfc.setFileFilter(new FileNameExtensionFilter("Path Files", PathFile.EXTENSION, "txt", "TXT"));
 
         if (jfc.showOpenDialog(g) == JFileChooser.APPROVE_OPTION) {
-            String fileAbsPath = jfc.getSelectedFile().getAbsolutePath();
+            File file = jfc.getSelectedFile();
+
+            try {
+                if (PathFile.isPathFile(file)) {
+                    // Only the index has been read so far, and only the points of the paths that are picked get decoded. The decoded paths
+                    // are copies, so nothing keeps the mapping around once this returns
+                    PathFile.Library library = PathFile.Library.open(file);
+                    int[] picked = pickPaths(library.entries());
+                    if (picked.length == 0) {
+                        return;
+                    }
 
-            if (fileAbsPath.endsWith(".txt") || fileAbsPath.endsWith(".TXT")) {
-                try (var ois = new ObjectInputStream(new FileInputStream(jfc.getSelectedFile()))) {
+                    addToPathsAndClear(currentPath); // Handle if there are already points in the current path
+                    for (int i : picked) {
+                        addToPathsAndClear(library.load(i));
+                    }
+                } else {
+                    // .txt files are from before PathFile, when paths were saved with Object streams
+                    PathFile.Contents contents = PathFile.readSerialized(file);
                     addToPathsAndClear(currentPath); // Handle if there are already points in the current path
 
-                    addToPathsAndClear((Path) ois.readObject()); // Read the saved current path
-
-                    var tempPaths = (LinkedHashMap<String, Path>) ois.readObject(); // Read the saved previous paths
-                    tempPaths.values().forEach(this::addToPathsAndClear);
-
-                    System.out.println("File imported successfully!");
-                    JOptionPane.showMessageDialog(g, "File imported successfully!", "File Importer", JOptionPane.INFORMATION_MESSAGE);
-                } catch (FileNotFoundException ex) {
-                    System.err.println("The file has magically disappeared!");
-                } catch (Exception ex) {
-                    System.err.println("Please format the data correctly!");
-                    JOptionPane.showMessageDialog(g, "You cannot import this path as is!", "File Importer", JOptionPane.ERROR_MESSAGE);
+                    addToPathsAndClear(contents.currentPath()); // Read the saved current path
+                    contents.paths().values().forEach(this::addToPathsAndClear); // Read the saved previous paths
                 }
+
+                System.out.println("File imported successfully!");
+                JOptionPane.showMessageDialog(g, "File imported successfully!", "File Importer", JOptionPane.INFORMATION_MESSAGE);
+            } catch (FileNotFoundException ex) {
+                System.err.println("The file has magically disappeared!");
+                JOptionPane.showMessageDialog(g, "The file has magically disappeared!", "File Importer", JOptionPane.ERROR_MESSAGE);
+            } catch (IOException ex) {
+                ex.printStackTrace();
+                JOptionPane.showMessageDialog(g, "Couldn't import the file: " + ex.getMessage(), "File Importer",
+                        JOptionPane.ERROR_MESSAGE);
+            } catch (Exception ex) {
+                System.err.println("Please format the data correctly!");
+                JOptionPane.showMessageDialog(g, "You cannot import this path as is!", "File Importer", JOptionPane.ERROR_MESSAGE);
             }
         }
     }
 
+    /**
+     * Lists every path in a file from its index and lets the user pick the ones to import. Only the file's current path is picked to start
+     * with, so the points of the rest aren't decoded unless they're asked for.
+     *
+     * @return the indices of the picked paths in entries, empty if the user cancelled
+     */
+    private int[] pickPaths(List<PathFile.Entry> entries) {
+        String[] rows = entries.stream().map(e -> String.format("%-12s %3d waypoints %6d points   (%.1f, %.1f) to (%.1f, %.1f)",
+                e.name().isEmpty() ? "current" : e.name(), e.waypoints(), e.samples(), e.minX(), e.minY(), e.maxX(), e.maxY())).toArray(
+                String[]::new);
+        JList<String> list = new JList<>(rows);
+        list.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        list.setSelectedIndex(0);
+
+        if (JOptionPane.showConfirmDialog(g, new JScrollPane(list), "Paths to Import", JOptionPane.OK_CANCEL_OPTION,
+                JOptionPane.PLAIN_MESSAGE) != JOptionPane.OK_OPTION) {
+            return new int[0];
+        }
+
+        return list.getSelectedIndices();
+    }
+
     private void outputRedoBuffer() {
         System.out.println("Redo buffer:");
         redoBuffer.clickPoints.forEach(System.out::println);
@@ -264,7 +357,17 @@ public final class PathGUITool extends JPanel implements ClipboardOwner {
      */
     private void addToPathsAndClear(Path path) {
         if (path.isNotEmpty()) {
-            paths.put(String.format("path%d", paths.size() + 1), new Path(path));
+            Path stored = new Path(path);
+            paths.put(String.format("path%d", paths.size() + 1), stored);
+            if (path == currentPath) {
+                journal.store();
+
+                // The current path's last generation may not have been published yet, so it's handed over to the stored copy
+                generator.forget(currentPath);
+                genPath(stored);
+            } else {
+                journal.importPath(path);
+            }
             path.clear();
             fig.repaint();
         }
@@ -286,35 +389,66 @@ public final class PathGUITool extends JPanel implements ClipboardOwner {
         // Probably don't need anti-aliasing
         g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
-        double width = getWidth();
+        int width = getWidth();
         height = getHeight();
 
+        // Figure out the scales the mouse listeners convert with
+        rectWidth = width - 12 - borderSize;
+        rectHeight = height - borderSize - 10;
+        xScale = rectWidth / FIELD_X_MAX;
+        yScale = rectHeight / FIELD_Y_MAX;
+        ppiX = 1.0 / 12.0 * xScale;
+        ppiY = 1.0 / 12.0 * yScale;
+
+        // The axes, grid and field only change when the panel is resized, so they're drawn into an image once and copied in every frame.
+        // The image is made at the screen's resolution, which can be more than a pixel per unit on HiDPI screens
+        double scaleX = g2.getTransform().getScaleX(), scaleY = g2.getTransform().getScaleY();
+        int imageWidth = (int) Math.ceil(width * scaleX), imageHeight = (int) Math.ceil(height * scaleY);
+        if (background == null || background.getWidth() != imageWidth || background.getHeight() != imageHeight) {
+            background = drawBackground(imageWidth, imageHeight, scaleX, scaleY);
+        }
+        g2.drawImage(background, 0, 0, width, height, null);
+
+        // Plot data
+        GraphicsUtils.plot(g2, currentPath, paths, borderSize, xScale, height - borderSize, yScale);
+    }
+
+    /**
+     * Draws the axes, ticks, grid lines, field elements and field border into a new image of the given size, for the current size of this
+     * panel.
+     *
+     * @param scaleX the number of image pixels per unit of this panel in x
+     * @param scaleY the number of image pixels per unit of this panel in y
+     */
+    private BufferedImage drawBackground(int imageWidth, int imageHeight, double scaleX, double scaleY) {
+        BufferedImage image = getGraphicsConfiguration().createCompatibleImage(imageWidth, imageHeight);
+        Graphics2D g2 = image.createGraphics();
+        g2.setColor(getBackground());
+        g2.fillRect(0, 0, imageWidth, imageHeight);
+        g2.scale(scaleX, scaleY);
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2.setColor(getForeground());
+        g2.setFont(getFont());
+
         // Draw X and Y lines axis.
-        Line2D.Double x_axis = new Line2D.Double(borderSize, height - borderSize, width - 12, height - borderSize);
+        Line2D.Double x_axis = new Line2D.Double(borderSize, height - borderSize, getWidth() - 12, height - borderSize);
         Line2D.Double y_axis = new Line2D.Double(borderSize, 10, borderSize, height - borderSize);
         g2.draw(x_axis);
         g2.draw(y_axis);
 
         // Draw ticks (the light gray grid lines and the numbers)
-        double yMax = 27.0, xMax = 54.0;
-        GraphicsUtils.drawXTickRange(this, g2, x_axis, y_axis.getY1(), y_axis.getY2(), xMax);
-        GraphicsUtils.drawYTickRange(this, g2, y_axis, x_axis.getX1(), x_axis.getX2(), yMax);
+        GraphicsUtils.drawXTickRange(this, g2, x_axis, y_axis.getY1(), y_axis.getY2(), FIELD_X_MAX);
+        GraphicsUtils.drawYTickRange(this, g2, y_axis, x_axis.getX1(), x_axis.getX2(), FIELD_Y_MAX);
 
         // Draw the field and everything on it
-        rectWidth = (x_axis.getX2() - x_axis.getX1());
-        rectHeight = (y_axis.getY2() - y_axis.getY1());
-        xScale = rectWidth / xMax;
-        yScale = rectHeight / yMax;
-        ppiX = 1.0 / 12.0 * xScale;
-        ppiY = 1.0 / 12.0 * yScale;
         fieldGen.plotField(g2, height, xScale, yScale);
 
         Rectangle rect = new Rectangle((int) y_axis.getX1(), (int) y_axis.getY1(), (int) rectWidth, (int) rectHeight);
         g2.setColor(Color.black);
         g2.draw(rect);
+        g2.dispose();
 
-        // Plot data
-        GraphicsUtils.plot(g2, currentPath, paths, borderSize, xScale, height - borderSize, yScale);
+        return image;
     }
 
     @Override
@@ -323,21 +457,35 @@ public final class PathGUITool extends JPanel implements ClipboardOwner {
     }
 
     /**
-     * This function generates pathSegPoints from the clicked points and is only called with a clicked Path. It generates the center path
-     * first and then if that wasn't null, it will generate the left and right paths, check if those are valid, assign those to the given
-     * pathSegment's left and right path BetterArrayLists respectively, and return true, else it will remove the last point if remove is
-     * true, show the fieldError and return false.
+     * This function generates the center, left and right points of a Path from its clicked points. The generation runs in the background
+     * and the points are swapped in and repainted once it's done, so until then the old points are still drawn. Calling it again before
+     * then replaces the generation that's waiting, and cancels the one that's running.
      *
      * @param path the pathSegment to get the clickPoints from and generate a paths from them
+     * @see BackgroundGenerator
      */
     private void genPath(Path path) {
-        // The path generator object that also stores the points of the generator path
-        PathGen2D pathGen = new PathGen2D(Utils.convertPointArray(path.clickPoints));
-        var lAndR = pathGen.leftRight(1.744792);
+        generator.generate(path);
+    }
+
+    /**
+     * Repaints only the parts of the panel that the path was last drawn over and that it covers now, for changes to a single path. The
+     * RepaintManager merges these into one clip for the next paint, and the paths outside of it aren't drawn at all.
+     *
+     * @param path the path that changed
+     */
+    private void repaintPath(Path path) {
+        if (xScale == 0.0) { // Not painted yet, so there's nothing to work the bounds out from
+            repaint();
+            return;
+        }
+
+        Rectangle before = GraphicsUtils.drawnBounds(path);
+        Rectangle after = GraphicsUtils.bounds(path, borderSize, xScale, height - borderSize, yScale);
 
-        path.pathPoints = Utils.convertResults(pathGen.results);
-        path.leftPoints = lAndR.get(0);
-        path.rightPoints = lAndR.get(1);
+        if (before != null || after != null) {
+            repaint(before == null ? after : after == null ? before : before.union(after));
+        }
     }
 
     /**
@@ -464,9 +612,10 @@ public final class PathGUITool extends JPanel implements ClipboardOwner {
                 Path temp = moveFlag.getPathName().equals("current") ? currentPath : paths.get(moveFlag.getPathName());
 
                 temp.clickPoints.get(moveFlag.getPointIndex()).incrementPosition(x_inc, y_inc);
+                journal.set(moveFlag.getPathName(), moveFlag.getPointIndex(), temp.clickPoints.get(moveFlag.getPointIndex()));
                 genPath(temp);
 
-                fig.repaint();
+                repaintPath(temp);
             }
         }
     }
@@ -479,8 +628,9 @@ public final class PathGUITool extends JPanel implements ClipboardOwner {
         /**
          * This function overrides the function in the superclass and is called whenever the X button is clicked on the JFrame. If there is
          * at least one point in the current user session, it prompts the user if they want to save their point(s)/path(s). If the user says
-         * no, the program exits, if the user cancels the program continues, and if the user says yes then the save() function is called. If
-         * the current user session has no visible points on the field, the program exits.
+         * no, the program exits, if the user cancels the program continues, and if the user says yes then the save() function is called,
+         * and the program only exits if the points were saved. If the current user session has no visible points on the field, the program
+         * exits. The journal is only discarded right before exiting, so the session can still be recovered if it wasn't saved.
          *
          * @param e the WindowEvent (unused) which is generated, in this case, when the X button is clicked.
          */
@@ -490,13 +640,16 @@ public final class PathGUITool extends JPanel implements ClipboardOwner {
                 int response = JOptionPane.showConfirmDialog(g, "Do you want to save your points?", "Point Saver",
                         JOptionPane.YES_NO_CANCEL_OPTION);
 
-                if (response == JOptionPane.YES_OPTION) {
-                    save();
+                // If the save was cancelled or failed, the window stays open with the session still journaled
+                if (response == JOptionPane.YES_OPTION && save()) {
+                    journal.discard();
                     System.exit(0);
                 } else if (response == JOptionPane.NO_OPTION) {
+                    journal.discard();
                     System.exit(0);
                 }
             } else {
+                journal.discard();
                 System.exit(0);
             }
         }
@@ -509,7 +662,8 @@ public final class PathGUITool extends JPanel implements ClipboardOwner {
         /**
          * This function overrides the function in the superclass and is called whenever Java detects the mouse has been dragged. A drag
          * consists of a mouse button being held down and the mouse being moved simultaneously. If you've clicked on a valid point to move,
-         * it will move that point instead, to whatever valid location your cursor is at and then update the path and GUI accordingly.
+         * it will move that point instead, to whatever valid location your cursor is at and then preview the path and update the GUI
+         * accordingly.
          * <p>
          * If the user is not trying to shift-click a path, then if the user's cursor is within the JFrame, then if the user is trying to
          * move a clicked point (moveFlag[1] > -1), move that point based on the cursor position, otherwise call updateWaypoints(true). If
@@ -526,15 +680,32 @@ public final class PathGUITool extends JPanel implements ClipboardOwner {
                     Path temp = moveFlag.getPathName().equals("current") ? currentPath : paths.get(moveFlag.getPathName());
 
                     temp.clickPoints.get(moveFlag.getPointIndex()).setPosition(point[0], point[1]);
-                    genPath(temp);
+                    journal.set(moveFlag.getPathName(), moveFlag.getPointIndex(), temp.clickPoints.get(moveFlag.getPointIndex()));
+                    generator.preview(temp);
+                    dragged = temp;
 
-                    fig.repaint();
+                    repaintPath(temp);
                 } else {
                     displayBoundaryWarning();
                 }
             }
         }
 
+        /**
+         * This function overrides the function in the superclass and is called whenever a mouse button is released. If a point was being
+         * dragged, the path it's on has only been previewed while it moved, so it's generated in full now. The preview stays up until the
+         * full path replaces it.
+         *
+         * @param e the (unused) MouseEvent generated when the mouse button is released
+         */
+        @Override
+        public void mouseReleased(MouseEvent e) {
+            if (dragged != null) {
+                genPath(dragged);
+                dragged = null;
+            }
+        }
+
         /**
          * This function overrides the function in the superclass and is called whenever a mouse button is clicked. First we check if shift
          * is held down or not. If it is we multi-thread the search for the point that was clicked. For each path in paths, a new Thread is
@@ -565,10 +736,11 @@ public final class PathGUITool extends JPanel implements ClipboardOwner {
 
                     if (values != null && values.length == 3) {
                         temp.clickPoints.get(moveFlag.getPointIndex()).setDegVelAcc(values[0], values[1], values[2]);
+                        journal.set(moveFlag.getPathName(), moveFlag.getPointIndex(), temp.clickPoints.get(moveFlag.getPointIndex()));
                         genPath(temp);
                     }
 
-                    fig.repaint();
+                    repaintPath(temp);
                 }
             }
         }
@@ -615,23 +787,11 @@ public final class PathGUITool extends JPanel implements ClipboardOwner {
          * @return false if it can't find a corresponding point, true otherwise
          */
         private boolean findClickedPoint(String pathName, Path path, Point p) {
-            Point temp = new Point();
-
-            for (int i = 0; i < path.clickPoints.size(); i++) {
-                Waypoint po = path.clickPoints.get(i);
-
-                for (int k = -3; k < 4; k++) {
-                    temp.x = (int) (po.getX() * xScale) + k;
-
-                    for (int l = -3; l < 4; l++) {
-                        temp.y = (int) (po.getY() * yScale) + l;
+            int index = Utils.findClickedPoint(path, p, xScale, yScale);
 
-                        if (p.equals(temp)) {
-                            moveFlag = new PointMarker(pathName, i);
-                            return true;
-                        }
-                    }
-                }
+            if (index != -1) {
+                moveFlag = new PointMarker(pathName, index);
+                return true;
             }
 
             return false;
@@ -649,14 +809,16 @@ public final class PathGUITool extends JPanel implements ClipboardOwner {
                 double[] values = Utils.getWaypointKinematicValues();
 
                 if (values != null && values.length == 3) {
-                    currentPath.clickPoints.add(new Waypoint(point[0], point[1], values[0], values[1], values[2]));
+                    Waypoint waypoint = new Waypoint(point[0], point[1], values[0], values[1], values[2]);
+                    currentPath.clickPoints.add(waypoint);
                     genPath(currentPath);
 
                     // Every time a new point is added, clear the redo buffer
                     redoBuffer.clear();
+                    journal.add(waypoint);
                 }
 
-                fig.repaint();
+                repaintPath(currentPath);
             } else {
                 displayBoundaryWarning();
             }
@@ -1,10 +1,17 @@
 import util.BetterArrayList;
+import util.GeneratedSegment;
+import util.Path;
+import util.PathResults;
 import util.Waypoint;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BooleanSupplier;
 
 /**
  * @author https://github.com/AtsushiSakai/PythonRobotics/blob/master/PathPlanning/QuinticPolynomialsPlanner/quintic_polynomials_planner.py
@@ -13,60 +20,230 @@ import java.util.Collections;
 public final class PathGen2D {
     private static final double MIN_T = 0.1, MAX_T = 10.0, POLY_D_T = 0.01, POINT_D_T = 0.01; // Seconds
     private static final double max_accel = 8.0; // ft/s^2
+    // Samples are taken at t = k / STEPS_PER_SECOND for integer k, which is the nearest double to k * POINT_D_T
+    private static final double STEPS_PER_SECOND = Math.round(1.0 / POINT_D_T);
+    private static final double PEAK_TOL = 1e-9; // ft/s^2, slack for round off in the peak acceleration
+    private static final int BRACKET_STEPS = 10; // Number of POLY_D_T steps the BISECTION search brackets with going up
+    // Paths with fewer segments than this aren't worth handing off to a pool
+    public static final int MIN_PARALLEL_SEGMENTS = 3;
+    private static final int CACHE_CAPACITY = 1024; // Segments
+    // Shared by every generation, so boundary conditions that come back don't have their T searched for again
+    static final SegmentCache CACHE = new SegmentCache(CACHE_CAPACITY);
+    private static final BooleanSupplier NEVER_CANCELLED = () -> false;
+    // -Dpathgen.debug=true prints a line for every segment found, which is far too many for batches or dragging
+    private static final boolean DEBUG = Boolean.getBoolean("pathgen.debug");
+
+    /**
+     * How quinticPolyPlanner finds the time T of a segment. LINEAR tries every POLY_D_T step from MIN_T and takes the first one that
+     * satisfies max_accel. BISECTION relies on the peak acceleration falling as T grows: it brackets the smallest feasible T starting from
+     * a guess (the T found last time, if there is one), then bisects the bracket.
+     */
+    public enum TSearch {
+        LINEAR, BISECTION
+    }
+
+    /**
+     * The T picked for a segment and the x and then y coefficients for it, highest power first. found is false if no T satisfied max_accel
+     * and T is MAX_T. The coefficients may be shared with the segment cache, so they must not be modified
+     */
+    record Solution(double T, double[] coeffs, boolean found, int iterations) {
+    }
+
+    private record Segment(PathResults results, Solution solution) {
+    }
+
     public final PathResults results;
+    // The generated segments, which can be handed back in through a Path so only the segments whose waypoints changed are solved again
+    public final BetterArrayList<GeneratedSegment> segments;
+    // The T that was picked for each segment
+    public final double[] segmentT;
+    // The index of the first sample that can differ from the previous results this generation was patched from, 0 if there weren't any
+    public final int firstChangedSample;
+    // The number of samples at the end that are the previous results' last samples moved along in time and distance, which is all that
+    // changes after the last segment whose waypoints changed. 0 if there weren't any
+    public final int unchangedTailSamples;
+    private int solverIterations;
 
+    /**
+     * Generates a path with the LINEAR search, the way it always has been. Pass BISECTION to the other constructors for the quicker search
+     */
     public PathGen2D(Waypoint[] waypoints) {
-        this.results = new PathResults();
-        int timeSpliceIndex = 0;
-
-        for (int i = 0; i < waypoints.length - 1; i++) {
-            PathResults temp = quinticPolyPlanner(waypoints[i].getX(), waypoints[i].getY(), waypoints[i].getRad(), waypoints[i].getV(),
-                    waypoints[i].getA(), waypoints[i + 1].getX(), waypoints[i + 1].getY(), waypoints[i + 1].getRad(),
-                    waypoints[i + 1].getV(), waypoints[i + 1].getA());
-
-            // TODO: improve this, it shouldn't just be the removal of a point every waypoint
-            if (i >= 1) {
-                // noinspection ListRemoveInLoop
-                for (int j = 0; j < temp.size(); j++) {
-                    temp.get(j).remove(0);
-                }
+        this(waypoints, TSearch.LINEAR, POLY_D_T, null);
+    }
+
+    /**
+     * @param waypoints  the waypoints to generate a path through
+     * @param search     the strategy used to find each segment's time T
+     * @param tTolerance the width (in seconds) a BISECTION search narrows its bracket down to, POLY_D_T gives the exact grid T
+     * @param tHints     the segmentT of a previous generation of this path, or null. Entries that are missing or NaN start cold
+     */
+    public PathGen2D(Waypoint[] waypoints, TSearch search, double tTolerance, double[] tHints) {
+        this(waypoints, search, tTolerance, tHints, null);
+    }
+
+    /**
+     * @param waypoints  the waypoints to generate a path through
+     * @param search     the strategy used to find each segment's time T
+     * @param tTolerance the width (in seconds) a BISECTION search narrows its bracket down to, POLY_D_T gives the exact grid T
+     * @param tHints     the segmentT of a previous generation of this path, or null. Entries that are missing or NaN start cold
+     * @param pool       the pool to solve the segments on concurrently, or null to solve them one after the other. Paths with fewer than
+     *                   MIN_PARALLEL_SEGMENTS segments are always solved on the calling thread. Either way the results are identical
+     */
+    public PathGen2D(Waypoint[] waypoints, TSearch search, double tTolerance, double[] tHints, ForkJoinPool pool) {
+        this(waypoints, null, null, tHints, search, tTolerance, 1, pool, NEVER_CANCELLED);
+    }
+
+    /**
+     * Regenerates a path from its clickPoints, reusing the segments and results from its last generation. Only the segments whose
+     * waypoints changed are solved again, and the samples before the first of them are copied over as is. The caller is responsible for
+     * storing segments and results back into the path.
+     *
+     * @param path       the path to regenerate
+     * @param search     the strategy used to find each segment's time T
+     * @param tTolerance the width (in seconds) a BISECTION search narrows its bracket down to, POLY_D_T gives the exact grid T
+     * @param pool       the pool to solve the segments on concurrently, or null to solve them one after the other
+     */
+    public PathGen2D(Path path, TSearch search, double tTolerance, ForkJoinPool pool) {
+        this(path, search, tTolerance, pool, NEVER_CANCELLED);
+    }
+
+    /**
+     * The same as above, but giving up part way through once cancelled returns true. It's checked before every T the search tries, so a
+     * generation that's been superseded stops within one quintic fit instead of running to the end. Segments that were given up on aren't
+     * cached.
+     *
+     * @param cancelled checked from whichever threads the segments are solved on, so it has to be thread safe
+     *
+     * @throws CancellationException if cancelled returned true before the path was finished
+     */
+    public PathGen2D(Path path, TSearch search, double tTolerance, ForkJoinPool pool, BooleanSupplier cancelled) {
+        this(path, search, tTolerance, 1, pool, cancelled);
+    }
+
+    /**
+     * The same as above, but only sampling every sampleStride-th POINT_D_T step, for cheap previews. Pair it with a coarse tTolerance to
+     * cut down the T search too. Segments sampled more coarsely than a generation asks for aren't reused by it, so generating a preview's
+     * path again at full resolution redoes the preview's segments and keeps the rest.
+     *
+     * @param sampleStride the number of POINT_D_T steps between samples, 1 for full resolution
+     */
+    public PathGen2D(Path path, TSearch search, double tTolerance, int sampleStride, ForkJoinPool pool, BooleanSupplier cancelled) {
+        this(Utils.convertPointArray(path.clickPoints), path.segments, path.results, null, search, tTolerance, sampleStride, pool,
+                cancelled);
+    }
+
+    private PathGen2D(Waypoint[] waypoints, List<GeneratedSegment> previous, PathResults previousResults, double[] tHints,
+            TSearch search, double tTolerance, int sampleStride, ForkJoinPool pool, BooleanSupplier cancelled) {
+        int count = Math.max(0, waypoints.length - 1);
+        this.segments = new BetterArrayList<>(count);
+        this.segmentT = new double[count];
+
+        // Everything before the first segment whose waypoints changed can be kept from the previous results
+        int firstDirty = 0;
+        if (previous != null && previousResults != null) {
+            while (firstDirty < Math.min(count, previous.size()) &&
+                    reusable(previous.get(firstDirty), waypoints, firstDirty, sampleStride)) {
+                firstDirty++;
             }
+        }
 
-            for (int j = 0; j < temp.size(); j++) {
-                results.get(j).addAll(temp.get(j));
+        // And the segments after the last one whose waypoints changed only move along, as long as they're still at the same indices
+        int tailStart = count;
+        if (previous != null && previousResults != null && previous.size() == count) {
+            while (tailStart - 1 > firstDirty && reusable(previous.get(tailStart - 1), waypoints, tailStart - 1, sampleStride)) {
+                tailStart--;
             }
+        }
+
+        List<Integer> dirty = new ArrayList<>();
+        double[] hints = new double[count];
+        for (int i = 0; i < count; i++) {
+            boolean reusable = i < firstDirty || (previous != null && i < previous.size() &&
+                    reusable(previous.get(i), waypoints, i, sampleStride));
+            segments.add(reusable ? previous.get(i) : null);
 
-            // We don't want each segment between 2 points to start with t = 0.0, make the time continuous
-            if (results.time.size() > timeSpliceIndex && timeSpliceIndex != 0) {
-                for (int j = timeSpliceIndex; j < results.time.size(); j++) {
-                    results.time.set(j, results.time.get(j) + results.time.get(timeSpliceIndex - 1));
+            if (!reusable) {
+                dirty.add(i);
+
+                if (previous != null && i < previous.size()) {
+                    hints[i] = previous.get(i).T();
+                } else {
+                    hints[i] = tHints != null && i < tHints.length ? tHints[i] : Double.NaN;
                 }
             }
+        }
+
+        Segment[] solved = new Segment[dirty.size()];
+        if (pool != null && solved.length >= MIN_PARALLEL_SEGMENTS) {
+            // Each segment only depends on its own 2 waypoints, so they can all be solved at once and then spliced in order below
+            List<ForkJoinTask<Segment>> tasks = new ArrayList<>(solved.length);
+            for (int index : dirty) {
+                tasks.add(pool.submit(() -> planSegment(waypoints, index, search, tTolerance, sampleStride, hints[index], cancelled)));
+            }
+
+            for (int i = 0; i < solved.length; i++) {
+                solved[i] = tasks.get(i).join();
+            }
+        } else {
+            for (int i = 0; i < solved.length; i++) {
+                solved[i] = planSegment(waypoints, dirty.get(i), search, tTolerance, sampleStride, hints[dirty.get(i)],
+                        cancelled);
+            }
+        }
+
+        for (int i = 0; i < solved.length; i++) {
+            int index = dirty.get(i);
+            Solution solution = solved[i].solution();
+            segments.set(index, new GeneratedSegment(waypoints[index], waypoints[index + 1], solution.T(), solution.coeffs(),
+                    solved[i].results(), sampleStride));
+            solverIterations += solution.iterations();
+        }
+
+        int keptSamples = 0, totalSamples = 0, tailSamples = 0;
+        for (int i = 0; i < count; i++) {
+            segmentT[i] = segments.get(i).T();
+            totalSamples += segments.get(i).results().size() - (i >= 1 ? 1 : 0);
+
+            if (i < firstDirty) {
+                keptSamples = totalSamples;
+            } else if (i >= tailStart) {
+                tailSamples += segments.get(i).results().size() - 1;
+            }
+        }
 
-            timeSpliceIndex += temp.get(0).size();
+        this.results = new PathResults(totalSamples);
+        this.firstChangedSample = Math.max(0, keptSamples - 1);
+        this.unchangedTailSamples = tailSamples;
+
+        if (keptSamples > 0) {
+            results.copyPrefix(previousResults, keptSamples);
+
+            // The last kept sample might have had its heading fixed to the previous last waypoint's, so put back the generated one
+            double seamRad = segments.get(firstDirty - 1).results().rad.getLast();
+            results.rad.setLast(seamRad);
+            results.deg.setLast(Math.toDegrees(seamRad));
         }
 
-        for (Double r : results.getRad()) {
-            results.deg.add(Math.toDegrees(r));
+        // We don't want each segment between 2 points to start with t = 0.0, so splice makes the time and distance continuous. The
+        // unchanged tail is spliced on the same way, which only copies its columns and shifts time and distance
+        // TODO: improve this, it shouldn't just be the removal of a point every waypoint
+        for (int i = firstDirty; i < count; i++) {
+            results.splice(segments.get(i).results(), i >= 1 ? 1 : 0);
         }
 
         if (waypoints.length > 1) {
             // Fix heading on last point
             results.deg.setLast(waypoints[waypoints.length - 1].getDeg());
             results.rad.setLast(waypoints[waypoints.length - 1].getRad());
-
-            results.distance.add(0.0);
-            for (int i = 1; i < results.x.size(); i++) {
-                double xDelta = results.x.get(i) - results.x.get(i - 1);
-                double yDelta = results.y.get(i) - results.y.get(i - 1);
-                results.distance.add(Math.hypot(xDelta, yDelta) + results.distance.get(i - 1));
-            }
         }
 
         // printResults();
     }
 
-    public static void main(String[] args) {
+    /**
+     * @return the example waypoint sets main runs on, fresh each time since waypoints can be edited in place
+     */
+    static Waypoint[][] examples() {
         Waypoint[] waypoints1 = new Waypoint[]{new Waypoint(0.0, 0.0, 0.0, 0.0, 0.0), new Waypoint(1.5, 0.0, 0.0, 5.7, 12.0),
                 new Waypoint(28.5, -15.0, 0.0, 5.7, -12.0), new Waypoint(30.0, -15.0, 0.0, 0.0, 0.0)};
 
@@ -81,7 +258,15 @@ public final class PathGen2D {
 
         Waypoint[] waypoints5 = new Waypoint[]{new Waypoint(0.0, 0.0, 0.0, 0.0, 8.0), new Waypoint(1.0, 0.0, 0.0, 4.0, 8.0)};
 
+        return new Waypoint[][]{waypoints1, waypoints2, waypoints3, waypoints4, waypoints5};
+    }
+
+    public static void main(String[] args) {
+        Waypoint[] waypoints5 = examples()[4];
+
         PathGen2D test = new PathGen2D(waypoints5);
+        System.out.printf("T search iterations: %d\n", test.getSolverIterations());
+        System.out.printf("T search iterations when generated again: %d (%s)\n", new PathGen2D(waypoints5).getSolverIterations(), CACHE);
         var l_r = test.leftRight(1.744792);
         test.printResults();
 
@@ -91,80 +276,235 @@ public final class PathGen2D {
     }
 
     /**
-     * @param s_x   start x
-     * @param s_y   start y
-     * @param s_yaw start yaw
-     * @param s_v   start velocity
-     * @param s_a   start acceleration
-     * @param g_x   goal x
-     * @param g_y   goal y
-     * @param g_yaw goal yaw
-     * @param g_v   goal velocity
-     * @param g_a   goal acceleration
+     * @return true if segment was generated between waypoints[i] and waypoints[i + 1] as they are now, at least as finely as sampleStride
+     */
+    private static boolean reusable(GeneratedSegment segment, Waypoint[] waypoints, int i, int sampleStride) {
+        return segment.sampleStride() <= sampleStride && segment.matches(waypoints[i], waypoints[i + 1]);
+    }
+
+    /**
+     * Solves and samples the segment between waypoints[i] and waypoints[i + 1]
+     */
+    private static Segment planSegment(Waypoint[] waypoints, int i, TSearch search, double tTolerance, int sampleStride, double tHint,
+            BooleanSupplier cancelled) {
+        Waypoint start = waypoints[i], goal = waypoints[i + 1];
+        Solution solution = quinticPolyPlanner(start.getX(), start.getY(), start.getRad(), start.getV(), start.getA(), goal.getX(),
+                goal.getY(), goal.getRad(), goal.getV(), goal.getA(), search, tTolerance, tHint, cancelled);
+
+        // Only the accepted T gets sampled
+        PathResults results = new PathResults(sampleCount(solution.T(), sampleStride));
+        double max_acc = sampleSegment(solution.coeffs(), solution.T(), sampleStride, results);
+
+        if (DEBUG && solution.found()) {
+            System.out.printf("found valid path: max accel=%f, T=%f, iterations=%d!\n", max_acc, solution.T(), solution.iterations());
+        }
+
+        return new Segment(results, solution);
+    }
+
+    /**
+     * Finds the T and coefficients of the segment between start and goal without sampling it
+     */
+    static Solution solveSegment(Waypoint start, Waypoint goal, TSearch search, double tTolerance, double tHint) {
+        return quinticPolyPlanner(start.getX(), start.getY(), start.getRad(), start.getV(), start.getA(), goal.getX(), goal.getY(),
+                goal.getRad(), goal.getV(), goal.getA(), search, tTolerance, tHint, NEVER_CANCELLED);
+    }
+
+    /**
+     * @param s_x        start x
+     * @param s_y        start y
+     * @param s_yaw      start yaw
+     * @param s_v        start velocity
+     * @param s_a        start acceleration
+     * @param g_x        goal x
+     * @param g_y        goal y
+     * @param g_yaw      goal yaw
+     * @param g_v        goal velocity
+     * @param g_a        goal acceleration
+     * @param search     the strategy used to find the segment time T
+     * @param tTolerance the width (in seconds) the BISECTION bracket is narrowed down to
+     * @param tHint      the T previously found for this segment to warm start BISECTION from, or NaN if there isn't one. A cached T for
+     *                   nearly the same boundary conditions takes its place
+     * @param cancelled  checked before every T that's tried, throwing a CancellationException once it returns true
      *
-     * @return a list of points of the quintic spline between the start and goal points. if the spline could not be found, the list will be
-     * empty
+     * @return the T that was picked for the quintic spline between the start and goal points and its coefficients. If no T satisfies
+     * max_accel, MAX_T is returned
      */
-    private static PathResults quinticPolyPlanner(double s_x, double s_y, double s_yaw, double s_v, double s_a, double g_x, double g_y,
-            double g_yaw, double g_v, double g_a) {
+    private static Solution quinticPolyPlanner(double s_x, double s_y, double s_yaw, double s_v, double s_a, double g_x, double g_y,
+            double g_yaw, double g_v, double g_a, TSearch search, double tTolerance, double tHint, BooleanSupplier cancelled) {
         // Setup x and y components of magnitudes
         double s_vx = s_v * Math.cos(s_yaw), s_vy = s_v * Math.sin(s_yaw), g_vx = g_v * Math.cos(g_yaw), g_vy = g_v * Math.sin(g_yaw);
         double s_ax = s_a * Math.cos(s_yaw), s_ay = s_a * Math.sin(s_yaw), g_ax = g_a * Math.cos(g_yaw), g_ay = g_a * Math.sin(g_yaw);
 
-        PathResults results = new PathResults();
+        double[] bc = new double[]{s_x, s_vx, s_ax, g_x, g_vx, g_ax, s_y, s_vy, s_ay, g_y, g_vy, g_ay};
+        double[] coeffs = new double[2 * QuinticSolver.COEFFS];
+        PeakAccelOracle oracle = new PeakAccelOracle();
+        int maxK = (int) Math.round((MAX_T - MIN_T) / POLY_D_T);
+        int tolSteps = Math.max(1, (int) Math.round(tTolerance / POLY_D_T));
 
-        // TODO: check that the velocity doesn't saturate going around a corner, left and right wheel speeds
-        for (double T = MIN_T; T <= MAX_T; T = new BigDecimal(T + POLY_D_T).setScale(4, RoundingMode.HALF_UP).doubleValue()) {
-            QuinticPolynomial xqp = new QuinticPolynomial(s_x, s_vx, s_ax, g_x, g_vx, g_ax, T);
-            QuinticPolynomial yqp = new QuinticPolynomial(s_y, s_vy, s_ay, g_y, g_vy, g_ay, T);
+        SegmentCache.Key key = cacheKey(s_x, s_y, s_yaw, s_v, s_a, g_x, g_y, g_yaw, g_v, g_a, search, tolSteps);
+        SegmentCache.Entry cached = CACHE.get(key);
 
-            results.clear();
+        if (cached != null) {
+            if (cached.solvedFor(bc)) {
+                return new Solution(cached.T(), cached.coeffs(), cached.found(), 0);
+            }
 
-            for (double t = 0.0; t < T + POLY_D_T; t = new BigDecimal(t + POINT_D_T).setScale(3, RoundingMode.HALF_UP).doubleValue()) {
-                results.time.add(t);
-                results.x.add(xqp.calcPoint(t));
-                results.y.add(yqp.calcPoint(t));
+            // Only rounded to the same key, so the smallest T for these exact boundary conditions can be shorter than the cached one. It
+            // still has to be searched for, but from right next to where it's likely to be
+            if (cached.found()) {
+                tHint = cached.T();
+            }
+
+            CACHE.reject();
+        }
 
-                double vx = xqp.calcFirstDeriv(t), vy = yqp.calcFirstDeriv(t);
-                double v = Math.hypot(vx, vy);
-                double yaw = Math.atan2(vy, vx);
-                results.vel.add(v);
-                results.rad.add(yaw);
+        int iterations = 0, foundK = -1;
 
-                results.acc.add(alignedDerivative(yaw, xqp.calcSecondDeriv(t), yqp.calcSecondDeriv(t)));
-                results.jerk.add(alignedDerivative(yaw, xqp.calcThirdDeriv(t), yqp.calcThirdDeriv(t)));
+        // TODO: check that the velocity doesn't saturate going around a corner, left and right wheel speeds. VelocityProfile can re-time
+        // the generated geometry within them, but only PathBatch --profile uses it so far
+        // The ends accelerate along their headings, so the peak is at least as big as either of them no matter what T is. If either is over
+        // the limit there is nothing to search for
+        boolean reachable = Math.max(Math.abs(s_a), Math.abs(g_a)) <= max_accel + PEAK_TOL;
 
-                double roc = calcParametricRadOfCurve(xqp, yqp, t);
-                results.roc.add(roc);
+        if (reachable && search == TSearch.LINEAR) {
+            for (int k = 0; k <= maxK && foundK == -1; k++) {
+                iterations++;
 
-                results.omega.add(v / roc);
+                if (feasible(bc, gridT(k), coeffs, oracle, cancelled)) {
+                    foundK = k;
+                }
             }
+        } else if (reachable) {
+            // Peak acceleration (nearly) always drops as T grows, so bracket the smallest feasible T on the POLY_D_T grid by (lo, hi] and
+            // then bisect. lo = -1 means everything from MIN_T up is feasible, hi = -1 means nothing is. Going up, the bracket is stepped
+            // coarsely instead of galloped so that short feasible pockets (like a segment that is exactly constant acceleration) aren't
+            // jumped over
+            int start = Double.isNaN(tHint) ? 0 : (int) Utils.constrainTo(Math.round((tHint - MIN_T) / POLY_D_T), 0, maxK);
+            int lo = -1, hi = -1;
+            iterations++;
+
+            if (feasible(bc, gridT(start), coeffs, oracle, cancelled)) {
+                hi = start;
+
+                // Warm started from a feasible T, walk back down in doubling steps since the answer is usually close by
+                for (int step = 1; hi > 0; step *= 2) {
+                    int k = Math.max(0, hi - step);
+                    iterations++;
+
+                    if (feasible(bc, gridT(k), coeffs, oracle, cancelled)) {
+                        hi = k;
+                    } else {
+                        lo = k;
+                        break;
+                    }
+                }
+            } else {
+                for (lo = start; lo < maxK && hi == -1; ) {
+                    int k = Math.min(maxK, lo + BRACKET_STEPS);
+                    iterations++;
+
+                    if (feasible(bc, gridT(k), coeffs, oracle, cancelled)) {
+                        hi = k;
+                    } else {
+                        lo = k;
+                    }
+                }
+            }
+
+            while (hi != -1 && hi - lo > tolSteps) {
+                int mid = (lo + hi) >>> 1;
+                iterations++;
 
-            ArrayList<Double> absRa = new ArrayList<>(results.acc.size());
-            for (int i = 0; i < results.acc.size(); i++) {
-                absRa.add(i, Math.abs(results.acc.get(i)));
+                if (feasible(bc, gridT(mid), coeffs, oracle, cancelled)) {
+                    hi = mid;
+                } else {
+                    lo = mid;
+                }
             }
 
-            double max_acc = Collections.max(absRa);
-            if (max_acc <= max_accel) {
-                System.out.printf("found valid path: max accel=%f, T=%f!\n", max_acc, T);
-                // xqp.printCoeffs();
-                // yqp.printCoeffs();
-                break;
-            } /*else {
-                System.out.printf("Time=%f\n", T);
-                xqp.printCoeffs();
-            }*/
+            foundK = hi;
+        }
+
+        // If not even MAX_T satisfies max_accel, MAX_T is used like the linear sweep running off the end
+        double T = gridT(foundK == -1 ? maxK : foundK);
+        QuinticSolver.solve2D(bc, T, coeffs);
+        CACHE.put(key, bc, T, coeffs, foundK != -1);
+
+        return new Solution(T, coeffs, foundK != -1, iterations);
+    }
+
+    /**
+     * @return the key a segment between these start and goal points is cached under, for a search that narrows T down to tolSteps
+     * POLY_D_T steps
+     */
+    static SegmentCache.Key cacheKey(double s_x, double s_y, double s_yaw, double s_v, double s_a, double g_x, double g_y, double g_yaw,
+            double g_v, double g_a, TSearch search, int tolSteps) {
+        // LINEAR doesn't use the tolerance, so it shouldn't split up its entries
+        return new SegmentCache.Key(SegmentCache.quantize(s_x), SegmentCache.quantize(s_y), SegmentCache.quantize(s_yaw),
+                SegmentCache.quantize(s_v), SegmentCache.quantize(s_a), SegmentCache.quantize(g_x), SegmentCache.quantize(g_y),
+                SegmentCache.quantize(g_yaw), SegmentCache.quantize(g_v), SegmentCache.quantize(g_a), max_accel, POLY_D_T, POINT_D_T,
+                search, search == TSearch.LINEAR ? 0 : tolSteps);
+    }
+
+    /**
+     * Fits the x and y quintics for the given T into coeffs and checks their peak aligned acceleration against max_accel. Every T search
+     * goes through here, so it's also where a cancelled generation stops.
+     */
+    private static boolean feasible(double[] bc, double T, double[] coeffs, PeakAccelOracle oracle, BooleanSupplier cancelled) {
+        if (cancelled.getAsBoolean()) {
+            throw new CancellationException("Path generation was superseded");
         }
 
-        return results;
+        QuinticSolver.solve2D(bc, T, coeffs);
+        return oracle.peakAlignedAccel(coeffs, T) <= max_accel + PEAK_TOL;
+    }
+
+    /**
+     * @return the k-th candidate T, rounded the same way the T sweep has always stepped
+     */
+    private static double gridT(int k) {
+        return new BigDecimal(MIN_T + k * POLY_D_T).setScale(4, RoundingMode.HALF_UP).doubleValue();
+    }
+
+    /**
+     * Samples the x and y quintics every sampleStride POINT_D_T steps over [0, T] into results, replacing whatever it held.
+     *
+     * @param coeffs the x and then y coefficients, highest power first, as written by QuinticSolver.solve2D
+     *
+     * @return the largest absolute aligned acceleration of the samples
+     */
+    private static double sampleSegment(double[] coeffs, double T, int sampleStride, PathResults results) {
+        results.clear();
+
+        return Kernels.sample(new QuinticPolynomial(coeffs, 0), new QuinticPolynomial(coeffs, QuinticSolver.COEFFS),
+                STEPS_PER_SECOND / sampleStride, sampleCount(T, sampleStride), results);
+    }
+
+    /**
+     * @return the number of samples a segment of length T gets, which are the t = k * sampleStride * POINT_D_T under
+     * T + sampleStride * POLY_D_T so that T itself is always sampled
+     */
+    private static int sampleCount(double T, int sampleStride) {
+        double stepsPerSecond = STEPS_PER_SECOND / sampleStride, end = T + sampleStride * POLY_D_T;
+        int count = (int) Math.ceil(end * stepsPerSecond);
+
+        // The ceil can be off by one either way from round off, so settle it with the same comparison the samples are stepped with
+        while (count > 0 && (count - 1) / stepsPerSecond >= end) {
+            count--;
+        }
+        while (count / stepsPerSecond < end) {
+            count++;
+        }
+
+        return count;
     }
 
     /**
      * Calculate the magnitude of the corresponding derivative in the same direction as velocity, with the proper sign + = increasing, - =
      * decreasing
      */
-    private static double alignedDerivative(double alignYaw, double dx, double dy) {
+    static double alignedDerivative(double alignYaw, double dx, double dy) {
         double cosDelta = Math.cos(Math.atan2(dy, dx) - alignYaw);
 
         return Math.hypot(dx, dy) * cosDelta;
@@ -173,7 +513,7 @@ public final class PathGen2D {
     /**
      * Positive = turning left, negative = turning right, INFINITY = straight
      */
-    private static double calcParametricRadOfCurve(QuinticPolynomial xqp, QuinticPolynomial yqp, double t) {
+    static double calcParametricRadOfCurve(QuinticPolynomial xqp, QuinticPolynomial yqp, double t) {
         double x_prime = xqp.calcFirstDeriv(t), y_prime = yqp.calcFirstDeriv(t);
         double x_double_prime = xqp.calcSecondDeriv(t), y_double_prime = yqp.calcSecondDeriv(t);
 
@@ -186,11 +526,25 @@ public final class PathGen2D {
         return Math.pow(x_prime * x_prime + y_prime * y_prime, 1.5) / denominator;
     }
 
+    /**
+     * @return the segments of this path as a Trajectory, which evaluates them at any t instead of at the samples in results
+     */
+    public Trajectory getTrajectory() {
+        return Trajectory.of(segments);
+    }
+
+    /**
+     * @return the total number of candidate T's that were checked against max_accel over every segment
+     */
+    public int getSolverIterations() {
+        return solverIterations;
+    }
+
     private void printResults() {
         System.out.printf("%-9s %-17s %-17s %-16s %-17s %-18s %-19s %-16s %-16s\n", "Time", "x", "y", "angle", "vel", "accel", "jerk",
                 "roc", "omega");
 
-        for (int i = 0; i < results.time.size(); i++) {
+        for (int i = 0; i < results.size(); i++) {
             System.out.printf("%f %15.12f %17.12f %17.12f %16.12f %17.12f %18.12f %19.12f %16.12f\n", results.time.get(i), results.x.get(i),
                     results.y.get(i), results.getDeg().get(i), results.vel.get(i), results.acc.get(i), results.jerk.get(i),
                     results.roc.get(i), results.omega.get(i));
@@ -205,33 +559,63 @@ public final class PathGen2D {
      * @return A BetterArrayList of the left and right paths (Stored in BetterArrayLists also) for the robot
      */
     public BetterArrayList<BetterArrayList<Waypoint>> leftRight(double robotTrkWidth) {
+        return leftRight(robotTrkWidth, 0);
+    }
+
+    /**
+     * Generate the left and right paths and velocities from the specified sample onwards, for patching the paths from a previous generation
+     *
+     * @param robotTrkWidth the robot track width
+     * @param from          the index of the first sample to generate the left and right points for
+     *
+     * @return A BetterArrayList of the left and right paths (Stored in BetterArrayLists also) for the robot, starting at from
+     */
+    public BetterArrayList<BetterArrayList<Waypoint>> leftRight(double robotTrkWidth, int from) {
+        return leftRight(results, robotTrkWidth, from, results.size());
+    }
+
+    /**
+     * Generate the left and right paths and velocities of the samples in [from, to), for patching the paths from a previous generation
+     * when the samples after to are unchanged
+     *
+     * @param robotTrkWidth the robot track width
+     * @param from          the index of the first sample to generate the left and right points for
+     * @param to            the index of the sample to stop before
+     *
+     * @return A BetterArrayList of the left and right paths (Stored in BetterArrayLists also) for the robot, from from to to
+     */
+    public BetterArrayList<BetterArrayList<Waypoint>> leftRight(double robotTrkWidth, int from, int to) {
+        return leftRight(results, robotTrkWidth, from, to);
+    }
+
+    /**
+     * Generate the left and right paths and velocities of any samples, such as the re-timed ones from a VelocityProfile
+     *
+     * @param results       the samples to offset
+     * @param robotTrkWidth the robot track width
+     * @param from          the index of the first sample to generate the left and right points for
+     * @param to            the index of the sample to stop before
+     *
+     * @return A BetterArrayList of the left and right paths (Stored in BetterArrayLists also) for the robot, from from to to
+     */
+    public static BetterArrayList<BetterArrayList<Waypoint>> leftRight(PathResults results, double robotTrkWidth, int from, int to) {
         BetterArrayList<BetterArrayList<Waypoint>> res = new BetterArrayList<>();
-        res.add(new BetterArrayList<>(results.time.size())); // Left
-        res.add(new BetterArrayList<>(results.time.size())); // Right
-
-        if (results.time.size() > 1) {
-            // Point value calculation, res.get(0) and res.get(1) are the left and right paths respectively
-            // Pi / 2 rad = 90 degrees
-            // leftX = trackWidth / 2 * cos(calculatedAngleAtThatIndex + Pi / 2) + centerPathXValueAtThatIndex
-            // leftY = trackWidth / 2 * sin(calculatedAngleAtThatIndex + Pi / 2) + centerPathYValueAtThatIndex
-            // rightX = trackWidth / 2 * cos(calculatedAngleAtThatIndex - Pi / 2) + centerPathXValueAtThatIndex
-            // rightY = trackWidth / 2 * sin(calculatedAngleAtThatIndex - Pi / 2) + centerPathYValueAtThatIndex
-            for (int i = 0; i < results.time.size(); i++) {
-                Waypoint point = new Waypoint(results.x.get(i), results.y.get(i), results.rad.get(i), results.vel.get(i),
-                        results.acc.get(i));
-                Waypoint leftPoint = new Waypoint(robotTrkWidth / 2 * Math.cos(point.getRad() + Math.PI / 2) + point.getX(),
-                        robotTrkWidth / 2 * Math.sin(point.getRad() + Math.PI / 2) + point.getY(), point);
-                Waypoint rightPoint = new Waypoint(robotTrkWidth / 2 * Math.cos(point.getRad() - Math.PI / 2) + point.getX(),
-                        robotTrkWidth / 2 * Math.sin(point.getRad() - Math.PI / 2) + point.getY(), point);
-
-                // Calculate left and right velocities
-                leftPoint.setV(point.getV() - results.omega.get(i) * robotTrkWidth / 2.0);
-                rightPoint.setV(point.getV() + results.omega.get(i) * robotTrkWidth / 2.0);
-
-                res.get(0).add(i, leftPoint);
-                res.get(1).add(i, rightPoint);
+        res.add(new BetterArrayList<>(to - from)); // Left
+        res.add(new BetterArrayList<>(to - from)); // Right
+
+        if (results.size() > 1) {
+            // leftX = x - trackWidth / 2 * sin(heading), leftY = y + trackWidth / 2 * cos(heading), and the other way around for the right,
+            // with left and right velocities of v -/+ omega * trackWidth / 2
+            int count = to - from;
+            double[][] x = new double[2][count], y = new double[2][count], v = new double[2][count];
+            Kernels.offset(results, from, to, null, new double[]{robotTrkWidth / 2.0, -robotTrkWidth / 2.0}, x, y, v);
+
+            for (int i = 0; i < count; i++) {
+                double rad = results.rad.get(from + i), acc = results.acc.get(from + i);
+                res.get(0).add(new Waypoint(x[0][i], y[0][i], rad, v[0][i], acc));
+                res.get(1).add(new Waypoint(x[1][i], y[1][i], rad, v[1][i], acc));
             }
-        } else if (results.time.size() == 1) {
+        } else if (results.size() == 1 && from == 0) {
             res.get(0).add(0, new Waypoint(results.x.get(0), results.y.get(0), results.rad.get(0), results.vel.get(0), results.acc.get(0)));
         }
 
@@ -0,0 +1,208 @@
+import java.util.Arrays;
+
+/**
+ * Finds the peak absolute aligned acceleration (the component of acceleration along the direction of travel) of an x and y quintic pair
+ * over [0, T] straight from their coefficients, without sampling.
+ * <p>
+ * The aligned acceleration is dot(v, a) / |v|, and its derivative is ((|a|^2 + dot(v, j))|v|^2 - dot(v, a)^2) / |v|^3. The numerator is a
+ * degree 14 polynomial, so every interior extremum is one of its real roots. Those are isolated exactly by finding the roots of each
+ * derivative from the bottom up, since a polynomial is monotone between consecutive roots of its derivative. Wherever the velocity vanishes
+ * the direction of travel is undefined, so the full |a| is used there, which is never smaller than what a sample at that point would give.
+ * <p>
+ * One oracle holds its own scratch space, so it allocates nothing per call but must not be shared between threads.
+ */
+final class PeakAccelOracle {
+    private static final int MAX_DEGREE = 14;
+    private static final double ROOT_TOL = 1e-10; // Seconds, the peak only moves quadratically with how far off its root is
+    private static final int MAX_ROOT_ITERATIONS = 100;
+    private static final double STOPPED_EPS = 1e-9; // ft/s, speeds under this are treated as stopped
+
+    // Polynomials are stored lowest power first in here
+    private final double[] xv = new double[5], xa = new double[4], xj = new double[3];
+    private final double[] yv = new double[5], ya = new double[4], yj = new double[3];
+    private final double[] vv = new double[9], va = new double[8], aaPlusVj = new double[7], numerator = new double[MAX_DEGREE + 1];
+    private final double[][] derivs = new double[MAX_DEGREE + 1][MAX_DEGREE + 1];
+    private final double[][] roots = new double[MAX_DEGREE + 1][MAX_DEGREE];
+    private final int[] rootCounts = new int[MAX_DEGREE + 1];
+
+    /**
+     * @param coeffs the x and then y coefficients, highest power first, as written by QuinticSolver.solve2D
+     * @param T      the end of the segment
+     *
+     * @return the largest absolute aligned acceleration on [0, T]
+     */
+    double peakAlignedAccel(double[] coeffs, double T) {
+        derivatives(coeffs, 0, xv, xa, xj);
+        derivatives(coeffs, QuinticSolver.COEFFS, yv, ya, yj);
+
+        // |v|^2, dot(v, a) and |a|^2 + dot(v, j), which is the derivative of dot(v, a)
+        clear(vv);
+        clear(va);
+        clear(aaPlusVj);
+        mulAdd(xv, 4, xv, 4, vv, 1.0);
+        mulAdd(yv, 4, yv, 4, vv, 1.0);
+        mulAdd(xv, 4, xa, 3, va, 1.0);
+        mulAdd(yv, 4, ya, 3, va, 1.0);
+        mulAdd(xa, 3, xa, 3, aaPlusVj, 1.0);
+        mulAdd(ya, 3, ya, 3, aaPlusVj, 1.0);
+        mulAdd(xv, 4, xj, 2, aaPlusVj, 1.0);
+        mulAdd(yv, 4, yj, 2, aaPlusVj, 1.0);
+
+        clear(numerator);
+        mulAdd(aaPlusVj, 6, vv, 8, numerator, 1.0);
+        mulAdd(va, 7, va, 7, numerator, -1.0);
+
+        double peak = Math.max(alignedAccelAt(0.0), alignedAccelAt(T));
+
+        int n = realRoots(numerator, MAX_DEGREE, 0.0, T);
+        for (int i = 0; i < n; i++) {
+            peak = Math.max(peak, alignedAccelAt(roots[0][i]));
+        }
+
+        // The speed bottoms out where dot(v, a) crosses zero, which is the only place the velocity can vanish mid segment
+        n = realRoots(va, 7, 0.0, T);
+        for (int i = 0; i < n; i++) {
+            peak = Math.max(peak, alignedAccelAt(roots[0][i]));
+        }
+
+        return peak;
+    }
+
+    private double alignedAccelAt(double t) {
+        double vx = horner(xv, 4, t), vy = horner(yv, 4, t);
+        double ax = horner(xa, 3, t), ay = horner(ya, 3, t);
+        double v = Math.hypot(vx, vy);
+
+        if (v < STOPPED_EPS) {
+            return Math.hypot(ax, ay);
+        }
+
+        return Math.abs(vx * ax + vy * ay) / v;
+    }
+
+    /**
+     * Writes the first, second and third derivatives of the quintic at coeffs[offset] (highest power first) lowest power first.
+     */
+    private static void derivatives(double[] coeffs, int offset, double[] v, double[] a, double[] j) {
+        double qa = coeffs[offset], qb = coeffs[offset + 1], qc = coeffs[offset + 2], qd = coeffs[offset + 3], qf = coeffs[offset + 4];
+
+        v[0] = qf;
+        v[1] = 2.0 * qd;
+        v[2] = 3.0 * qc;
+        v[3] = 4.0 * qb;
+        v[4] = 5.0 * qa;
+
+        a[0] = 2.0 * qd;
+        a[1] = 6.0 * qc;
+        a[2] = 12.0 * qb;
+        a[3] = 20.0 * qa;
+
+        j[0] = 6.0 * qc;
+        j[1] = 24.0 * qb;
+        j[2] = 60.0 * qa;
+    }
+
+    /**
+     * Finds every real root of p (lowest power first) strictly inside (lo, hi) and leaves them sorted in roots[0].
+     *
+     * @return the number of roots found
+     */
+    private int realRoots(double[] p, int degree, double lo, double hi) {
+        System.arraycopy(p, 0, derivs[0], 0, degree + 1);
+        for (int k = 1; k < degree; k++) {
+            for (int i = 0; i <= degree - k; i++) {
+                derivs[k][i] = derivs[k - 1][i + 1] * (i + 1);
+            }
+        }
+
+        // derivs[degree - 1] is linear
+        double c0 = derivs[degree - 1][0], c1 = derivs[degree - 1][1];
+        rootCounts[degree - 1] = 0;
+        if (c1 != 0.0 && -c0 / c1 > lo && -c0 / c1 < hi) {
+            roots[degree - 1][rootCounts[degree - 1]++] = -c0 / c1;
+        }
+
+        // Each level is monotone between the roots of the level above it, so there is at most one root in each of those intervals
+        for (int k = degree - 2; k >= 0; k--) {
+            int deg = degree - k, count = 0;
+            double a = lo, fa = horner(derivs[k], deg, a);
+
+            for (int r = 0; r <= rootCounts[k + 1]; r++) {
+                double b = r < rootCounts[k + 1] ? roots[k + 1][r] : hi, fb = horner(derivs[k], deg, b);
+
+                if (fb == 0.0 && b < hi) {
+                    roots[k][count++] = b;
+                } else if (fa != 0.0 && (fa < 0.0) != (fb < 0.0)) {
+                    roots[k][count++] = illinois(derivs[k], deg, a, fa, b, fb);
+                }
+
+                a = b;
+                fa = fb;
+            }
+
+            rootCounts[k] = count;
+        }
+
+        return rootCounts[0];
+    }
+
+    /**
+     * Narrows down the single root of p in [a, b] with the Illinois variant of regula falsi, which keeps the root bracketed like bisection
+     * but converges superlinearly.
+     */
+    private static double illinois(double[] p, int degree, double a, double fa, double b, double fb) {
+        int side = 0;
+
+        for (int i = 0; i < MAX_ROOT_ITERATIONS && b - a > ROOT_TOL; i++) {
+            double m = (a * fb - b * fa) / (fb - fa);
+            if (!(m > a && m < b)) {
+                m = 0.5 * (a + b);
+            }
+
+            double fm = horner(p, degree, m);
+            if (fm == 0.0) {
+                return m;
+            } else if ((fm < 0.0) == (fa < 0.0)) {
+                a = m;
+                fa = fm;
+                if (side == -1) {
+                    fb *= 0.5;
+                }
+                side = -1;
+            } else {
+                b = m;
+                fb = fm;
+                if (side == 1) {
+                    fa *= 0.5;
+                }
+                side = 1;
+            }
+        }
+
+        return 0.5 * (a + b);
+    }
+
+    private static double horner(double[] p, int degree, double t) {
+        double res = p[degree];
+        for (int i = degree - 1; i >= 0; i--) {
+            res = res * t + p[i];
+        }
+
+        return res;
+    }
+
+    /**
+     * out += sign * p * q
+     */
+    private static void mulAdd(double[] p, int pDegree, double[] q, int qDegree, double[] out, double sign) {
+        for (int i = 0; i <= pDegree; i++) {
+            for (int j = 0; j <= qDegree; j++) {
+                out[i + j] += sign * p[i] * q[j];
+            }
+        }
+    }
+
+    private static void clear(double[] p) {
+        Arrays.fill(p, 0.0);
+    }
+}
@@ -1,4 +1,5 @@
-import org.apache.commons.math3.linear.*;
+import util.FastMath;
+import util.PathResults;
 
 /**
  * @author https://github.com/AtsushiSakai/PythonRobotics/blob/master/PathPlanning/QuinticPolynomialsPlanner/quinticPolynomialsPlanner.py
@@ -13,27 +14,123 @@ public final class QuinticPolynomial {
     private final double g;
 
     QuinticPolynomial(double xs, double vxs, double axs, double xe, double vxe, double axe, double T) {
-        this.g = xs;
-        this.f = vxs;
-        this.d = axs / 2.0;
-
-        double T2 = T * T, T3 = T * T * T, T4 = T * T * T * T, T5 = T * T * T * T * T;
-
-        // Solve the linear equation A × X = B. @formatter:off
-        RealMatrix a1 = new Array2DRowRealMatrix(new double[][]{
-                {T3, T4, T5},
-                {3.0 * T2, 4.0 * T3, 5.0 * T4},
-                {6.0 * T, 12.0 * T2, 20.0 * T3}
-        });
-        RealVector b1 = new ArrayRealVector(new double[]{
-                xe - this.g - this.f * T - this.d * T2, vxe - this.f - 2.0 * this.d * T, axe - 2.0 * this.d
-        });
+        this(solve(xs, vxs, axs, xe, vxe, axe, T), 0);
+    }
+
+    /**
+     * @param coeffs the coefficients as written by QuinticSolver, highest power first
+     * @param offset the index of a in coeffs
+     */
+    QuinticPolynomial(double[] coeffs, int offset) {
+        this.a = coeffs[offset];
+        this.b = coeffs[offset + 1];
+        this.c = coeffs[offset + 2];
+        this.d = coeffs[offset + 3];
+        this.f = coeffs[offset + 4];
+        this.g = coeffs[offset + 5];
+    }
+
+    private static double[] solve(double xs, double vxs, double axs, double xe, double vxe, double axe, double T) {
+        double[] coeffs = new double[QuinticSolver.COEFFS];
+        QuinticSolver.solve(xs, vxs, axs, xe, vxe, axe, T, coeffs, 0);
+        return coeffs;
+    }
+
+    /**
+     * Samples an x and y quintic pair at t = k / stepsPerSecond for every k in [0, count), appending every column of results. All 4
+     * derivatives are worked out together in Horner form, the aligned derivatives are dot products with the direction of travel and
+     * distance is the running sum of the straight lines between samples, starting at 0. Nothing is allocated per sample as long as results
+     * has room for count more.
+     *
+     * @param stepsPerSecond the number of samples per second, dividing the integer k by it gives the same t as rounding k / stepsPerSecond
+     *                       to the nearest double
+     *
+     * @return the largest absolute aligned acceleration of the samples
+     */
+    static double sample(QuinticPolynomial xqp, QuinticPolynomial yqp, double stepsPerSecond, int count, PathResults results) {
+        return sample(xqp, yqp, stepsPerSecond, 0, count, results);
+    }
+
+    /**
+     * Samples k in [from, to) the same way, carrying the distance on from the last sample in results when from isn't 0
+     */
+    static double sample(QuinticPolynomial xqp, QuinticPolynomial yqp, double stepsPerSecond, int from, int to, PathResults results) {
+        return sample(xqp, yqp, stepsPerSecond, from, to, results, FastMath.ENABLED);
+    }
+
+    /**
+     * Samples k in [from, to) the same way, using FastMath's atan2 and hypot if fastMath is true. Everything else goes through the other
+     * overloads, which pass FastMath.ENABLED. This is only called directly to compare the two, and by the vectorized kernel with false for
+     * the samples it can't do a whole vector of, since it always uses Math.
+     */
+    static double sample(QuinticPolynomial xqp, QuinticPolynomial yqp, double stepsPerSecond, int from, int to, PathResults results,
+            boolean fastMath) {
+        // @formatter:off
+        double xa = xqp.a, xb = xqp.b, xc = xqp.c, xd = xqp.d, xf = xqp.f, xg = xqp.g;
+        double ya = yqp.a, yb = yqp.b, yc = yqp.c, yd = yqp.d, yf = yqp.f, yg = yqp.g;
+        double xa5 = 5.0 * xa, xb4 = 4.0 * xb, xc3 = 3.0 * xc, xd2 = 2.0 * xd, xa20 = 20.0 * xa, xb12 = 12.0 * xb, xc6 = 6.0 * xc;
+        double ya5 = 5.0 * ya, yb4 = 4.0 * yb, yc3 = 3.0 * yc, yd2 = 2.0 * yd, ya20 = 20.0 * ya, yb12 = 12.0 * yb, yc6 = 6.0 * yc;
+        double xa60 = 60.0 * xa, xb24 = 24.0 * xb, ya60 = 60.0 * ya, yb24 = 24.0 * yb;
         // @formatter:on
-        RealVector x = new LUDecomposition(a1).getSolver().solve(b1);
 
-        this.c = x.getEntry(0);
-        this.b = x.getEntry(1);
-        this.a = x.getEntry(2);
+        double max_acc = 0.0, prevX = 0.0, prevY = 0.0, distance = 0.0;
+        if (from > 0) {
+            prevX = results.x.getLast();
+            prevY = results.y.getLast();
+            distance = results.distance.getLast();
+        }
+
+        for (int k = from; k < to; k++) {
+            double t = k / stepsPerSecond;
+
+            double px = ((((xa * t + xb) * t + xc) * t + xd) * t + xf) * t + xg;
+            double py = ((((ya * t + yb) * t + yc) * t + yd) * t + yf) * t + yg;
+            double vx = (((xa5 * t + xb4) * t + xc3) * t + xd2) * t + xf;
+            double vy = (((ya5 * t + yb4) * t + yc3) * t + yd2) * t + yf;
+            double ax = ((xa20 * t + xb12) * t + xc6) * t + xd2;
+            double ay = ((ya20 * t + yb12) * t + yc6) * t + yd2;
+            double jx = (xa60 * t + xb24) * t + xc6;
+            double jy = (ya60 * t + yb24) * t + yc6;
+
+            double v2 = vx * vx + vy * vy, v = Math.sqrt(v2);
+            double yaw = fastMath ? FastMath.atan2(vy, vx) : Math.atan2(vy, vx);
+            // The direction of travel, which only needs the trig functions when stopped and atan2 picks it from the signs of the zeros
+            double cos = v > 0.0 ? vx / v : Math.cos(yaw), sin = v > 0.0 ? vy / v : Math.sin(yaw);
+            double acc = ax * cos + ay * sin;
+
+            // Positive = turning left, negative = turning right, INFINITY = straight
+            double denominator = vx * ay - vy * ax;
+            double roc = Utils.absLessThanEps(denominator) ? Double.POSITIVE_INFINITY : v2 * v / denominator;
+
+            if (k > 0) {
+                distance += fastMath ? FastMath.hypot(px - prevX, py - prevY) : Math.hypot(px - prevX, py - prevY);
+            }
+            prevX = px;
+            prevY = py;
+
+            results.time.add(t);
+            results.x.add(px);
+            results.y.add(py);
+            results.rad.add(yaw);
+            results.deg.add(Math.toDegrees(yaw));
+            results.vel.add(v);
+            results.acc.add(acc);
+            results.jerk.add(jx * cos + jy * sin);
+            results.roc.add(roc);
+            results.omega.add(v / roc);
+            results.distance.add(distance);
+
+            max_acc = Math.max(max_acc, Math.abs(acc));
+        }
+
+        return max_acc;
+    }
+
+    /**
+     * @return a, b, c, d, f and g, highest power first
+     */
+    double[] getCoeffs() {
+        return new double[]{this.a, this.b, this.c, this.d, this.f, this.g};
     }
 
     void printCoeffs() {
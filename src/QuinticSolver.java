@@ -0,0 +1,50 @@
+/**
+ * Solves for the coefficients of ax^5 + bx^4 + cx^3 + dx^2 + fx + g from the position, velocity and acceleration at both ends of [0, T].
+ * The start conditions give d, f and g directly, and the remaining 3x3 system for a, b and c has a closed form inverse in T, so there's no
+ * need to build and decompose a matrix for every candidate T. Coefficients are written into a caller supplied array, highest power first.
+ */
+public final class QuinticSolver {
+    public static final int COEFFS = 6;
+
+    private QuinticSolver() {
+    }
+
+    /**
+     * Fits one axis.
+     *
+     * @param out    the array to write a, b, c, d, f, g into
+     * @param offset the index in out to start writing at
+     */
+    static void solve(double xs, double vxs, double axs, double xe, double vxe, double axe, double T, double[] out, int offset) {
+        double T2 = T * T, invT = 1.0 / T;
+        double d = axs / 2.0;
+
+        // What's left over at t = T after the start conditions, which a, b and c have to make up
+        double r0 = xe - xs - vxs * T - d * T2;
+        double r1 = (vxe - vxs - axs * T) * T;
+        double r2 = (axe - axs) * T2;
+
+        // The inverse of {{T^3, T^4, T^5}, {3T^2, 4T^3, 5T^4}, {6T, 12T^2, 20T^3}} applied to (r0, r1 / T, r2 / T^2)
+        double c = (10.0 * r0 - 4.0 * r1 + 0.5 * r2) * (invT * invT * invT);
+        double b = (-15.0 * r0 + 7.0 * r1 - r2) * (invT * invT * invT * invT);
+        double a = (6.0 * r0 - 3.0 * r1 + 0.5 * r2) * (invT * invT * invT * invT * invT);
+
+        out[offset] = a;
+        out[offset + 1] = b;
+        out[offset + 2] = c;
+        out[offset + 3] = d;
+        out[offset + 4] = vxs;
+        out[offset + 5] = xs;
+    }
+
+    /**
+     * Fits the x axis into out[0..5] and the y axis into out[6..11] for the same T.
+     *
+     * @param bc the start and goal position, velocity and acceleration of x followed by the same for y, so {s_x, s_vx, s_ax, g_x, g_vx,
+     *           g_ax, s_y, s_vy, s_ay, g_y, g_vy, g_ay}
+     */
+    static void solve2D(double[] bc, double T, double[] out) {
+        solve(bc[0], bc[1], bc[2], bc[3], bc[4], bc[5], T, out, 0);
+        solve(bc[6], bc[7], bc[8], bc[9], bc[10], bc[11], T, out, COEFFS);
+    }
+}
@@ -0,0 +1,117 @@
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded, least recently used memo of solved segments, so that boundary conditions that come back (undo and redo, dragging a point back
+ * to where it was, opening a file again or sub routes shared between autos) don't have to have their T searched for again.
+ * <p>
+ * Keys are the start and goal x, y, yaw, velocity and acceleration rounded to QUANTUM, along with the generator constants and the search
+ * settings that decide which T gets accepted. Entries keep the exact boundary conditions they were solved for, so a hit on slightly
+ * different ones can be told apart. The caller only reuses exact hits, and only warm starts its search from the T of the others. Every
+ * method is synchronized, so one cache can be shared between the threads that solve segments concurrently.
+ */
+final class SegmentCache {
+    // The resolution the boundary conditions are rounded to for the key, in ft, rad, ft/s and ft/s^2
+    static final double QUANTUM = 1e-6;
+
+    record Key(long s_x, long s_y, long s_yaw, long s_v, long s_a, long g_x, long g_y, long g_yaw, long g_v, long g_a, double maxAccel,
+            double polyDT, double pointDT, PathGen2D.TSearch search, int tolSteps) {
+    }
+
+    /**
+     * @param bc     the exact boundary conditions, laid out the way QuinticSolver.solve2D takes them
+     * @param T      the T that was accepted
+     * @param coeffs the x and then y coefficients for T, highest power first
+     * @param found  false if no T satisfied max_accel and T is the MAX_T fallback
+     */
+    record Entry(double[] bc, double T, double[] coeffs, boolean found) {
+        /**
+         * @return true if this entry was solved for exactly the boundary conditions bc
+         */
+        boolean solvedFor(double[] bc) {
+            return Arrays.equals(this.bc, bc);
+        }
+    }
+
+    private final int capacity;
+    private final LinkedHashMap<Key, Entry> entries;
+    private long hits, misses, evictions;
+
+    /**
+     * @param capacity the number of segments to hold before the least recently used one is evicted
+     */
+    SegmentCache(int capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > SegmentCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+
+                return false;
+            }
+        };
+    }
+
+    static long quantize(double value) {
+        return Math.round(value / QUANTUM);
+    }
+
+    /**
+     * @return the entry for key, or null if there isn't one. Either way the hit or miss is counted
+     */
+    synchronized Entry get(Key key) {
+        Entry entry = entries.get(key);
+
+        if (entry == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+
+        return entry;
+    }
+
+    /**
+     * Stores copies of bc and coeffs under key, evicting the least recently used entry if the cache is full
+     */
+    synchronized void put(Key key, double[] bc, double T, double[] coeffs, boolean found) {
+        entries.put(key, new Entry(bc.clone(), T, coeffs.clone(), found));
+    }
+
+    /**
+     * Counts a hit that get returned but the caller couldn't use after all as a miss instead
+     */
+    synchronized void reject() {
+        hits--;
+        misses++;
+    }
+
+    synchronized void clear() {
+        entries.clear();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized long getHits() {
+        return hits;
+    }
+
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    synchronized long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d/%d segments cached, %d hits, %d misses, %d evictions", entries.size(), capacity, hits, misses, evictions);
+    }
+}
@@ -0,0 +1,232 @@
+import util.GeneratedSegment;
+import util.PathResults;
+import util.Waypoint;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A generated path kept as the x and y quintics of each of its segments instead of as samples, so that it takes a few doubles per segment
+ * rather than a few thousand per path. Anything about the path can be evaluated at any t on demand, and consumers that do want samples can
+ * ask for them at whatever resolution they need.
+ * <p>
+ * Time runs continuously over the whole path, with each segment starting where the one before it ends. A seam belongs to the segment that
+ * ends there, the same way the samples of a PathGen2D do.
+ */
+public final class Trajectory {
+    private final QuinticPolynomial[] xqp, yqp;
+    // startTimes[i] is when segment i starts, and startTimes[segments] is when the path ends
+    private final double[] startTimes;
+    private final double endRad;
+
+    /**
+     * Everything about the path at one instant
+     *
+     * @param t     the time since the start of the path
+     * @param rad   the heading, which is the direction of travel except at the very end where it is the last waypoint's heading
+     * @param vel   the speed
+     * @param acc   the acceleration along the direction of travel
+     * @param jerk  the jerk along the direction of travel
+     * @param roc   the radius of curvature. Positive = turning left, negative = turning right, INFINITY = straight
+     * @param omega the angular velocity
+     */
+    public record State(double t, double x, double y, double rad, double vel, double acc, double jerk, double roc, double omega) {
+        /**
+         * @return the left wheel's point and velocity, the same as leftRight in PathGen2D works them out
+         */
+        public Waypoint left(double robotTrkWidth) {
+            return wheel(robotTrkWidth, 1.0);
+        }
+
+        /**
+         * @return the right wheel's point and velocity, the same as leftRight in PathGen2D works them out
+         */
+        public Waypoint right(double robotTrkWidth) {
+            return wheel(robotTrkWidth, -1.0);
+        }
+
+        private Waypoint wheel(double robotTrkWidth, double side) {
+            Waypoint wheel = new Waypoint(robotTrkWidth / 2 * Math.cos(rad + side * Math.PI / 2) + x,
+                    robotTrkWidth / 2 * Math.sin(rad + side * Math.PI / 2) + y, rad, vel, acc);
+            wheel.setV(vel - side * omega * robotTrkWidth / 2.0);
+
+            return wheel;
+        }
+    }
+
+    /**
+     * @param coeffs the x and then y coefficients of each segment, highest power first, as written by QuinticSolver.solve2D
+     * @param T      the time each segment takes
+     * @param endRad the heading of the last waypoint
+     */
+    Trajectory(double[][] coeffs, double[] T, double endRad) {
+        this.xqp = new QuinticPolynomial[coeffs.length];
+        this.yqp = new QuinticPolynomial[coeffs.length];
+        this.startTimes = new double[coeffs.length + 1];
+        this.endRad = endRad;
+
+        for (int i = 0; i < coeffs.length; i++) {
+            xqp[i] = new QuinticPolynomial(coeffs[i], 0);
+            yqp[i] = new QuinticPolynomial(coeffs[i], QuinticSolver.COEFFS);
+            startTimes[i + 1] = startTimes[i] + T[i];
+        }
+    }
+
+    /**
+     * Builds the trajectory of segments that have already been generated, such as the segments of a PathGen2D
+     */
+    public static Trajectory of(List<GeneratedSegment> segments) {
+        double[][] coeffs = new double[segments.size()][];
+        double[] T = new double[segments.size()];
+
+        for (int i = 0; i < segments.size(); i++) {
+            coeffs[i] = segments.get(i).coeffs();
+            T[i] = segments.get(i).T();
+        }
+
+        return new Trajectory(coeffs, T, segments.isEmpty() ? 0.0 : segments.get(segments.size() - 1).goal().getRad());
+    }
+
+    /**
+     * Finds the T of every segment between the waypoints without sampling any of them
+     */
+    public static Trajectory plan(Waypoint[] waypoints) {
+        // A tolerance under one grid step narrows the search down to the exact grid T
+        return plan(waypoints, PathGen2D.TSearch.BISECTION, 0.0);
+    }
+
+    /**
+     * Finds the T of every segment between the waypoints without sampling any of them
+     *
+     * @param search     the strategy used to find each segment's time T
+     * @param tTolerance the width (in seconds) a BISECTION search narrows its bracket down to
+     */
+    public static Trajectory plan(Waypoint[] waypoints, PathGen2D.TSearch search, double tTolerance) {
+        int count = Math.max(0, waypoints.length - 1);
+        double[][] coeffs = new double[count][];
+        double[] T = new double[count];
+
+        for (int i = 0; i < count; i++) {
+            PathGen2D.Solution solution = PathGen2D.solveSegment(waypoints[i], waypoints[i + 1], search, tTolerance, Double.NaN);
+            coeffs[i] = solution.coeffs();
+            T[i] = solution.T();
+        }
+
+        return new Trajectory(coeffs, T, waypoints.length == 0 ? 0.0 : waypoints[waypoints.length - 1].getRad());
+    }
+
+    /**
+     * @return the time the whole path takes
+     */
+    public double getDuration() {
+        return startTimes[startTimes.length - 1];
+    }
+
+    public int getSegmentCount() {
+        return xqp.length;
+    }
+
+    /**
+     * @return the index of the segment that t falls in, with t clamped to the path
+     */
+    public int segmentAt(double t) {
+        int index = Arrays.binarySearch(startTimes, t);
+
+        // An exact hit on a start time belongs to the segment ending there, otherwise take the segment whose start is just before t
+        index = index >= 0 ? index - 1 : -index - 2;
+
+        return (int) Utils.constrainTo(index, 0, xqp.length - 1);
+    }
+
+    /**
+     * @return the time the segment starts at
+     */
+    double getStartTime(int segment) {
+        return startTimes[segment];
+    }
+
+    /**
+     * @return the speed local seconds into the segment, without working out the rest of the state
+     */
+    double speedAt(int segment, double local) {
+        return Math.hypot(xqp[segment].calcFirstDeriv(local), yqp[segment].calcFirstDeriv(local));
+    }
+
+    /**
+     * @param t the time since the start of the path, clamped to [0, getDuration()]
+     *
+     * @return the state of the path at t
+     */
+    public State stateAt(double t) {
+        if (xqp.length == 0) {
+            throw new IllegalStateException("A trajectory needs at least 2 waypoints to be evaluated");
+        }
+
+        t = Utils.constrainTo(t, 0.0, getDuration());
+        int segment = segmentAt(t);
+        QuinticPolynomial x = xqp[segment], y = yqp[segment];
+        double local = t - startTimes[segment];
+
+        double vx = x.calcFirstDeriv(local), vy = y.calcFirstDeriv(local);
+        double vel = Math.hypot(vx, vy);
+        double yaw = Math.atan2(vy, vx);
+        double roc = PathGen2D.calcParametricRadOfCurve(x, y, local);
+
+        return new State(t, x.calcPoint(local), y.calcPoint(local), t == getDuration() ? endRad : yaw, vel,
+                PathGen2D.alignedDerivative(yaw, x.calcSecondDeriv(local), y.calcSecondDeriv(local)),
+                PathGen2D.alignedDerivative(yaw, x.calcThirdDeriv(local), y.calcThirdDeriv(local)), roc, vel / roc);
+    }
+
+    /**
+     * Samples the path every dt seconds within each segment, along with the end of every segment, the same way PathGen2D lays out its
+     * samples.
+     *
+     * @param dt the time between samples, in seconds
+     *
+     * @return the samples, with every column filled in
+     */
+    public PathResults sample(double dt) {
+        int total = 1;
+        for (int i = 0; i < xqp.length; i++) {
+            total += steps(i, dt);
+        }
+
+        PathResults results = new PathResults(total);
+        if (xqp.length == 0) {
+            return results;
+        }
+
+        for (int i = 0; i < xqp.length; i++) {
+            int steps = steps(i, dt);
+            double T = startTimes[i + 1] - startTimes[i];
+
+            for (int k = i == 0 ? 0 : 1; k <= steps; k++) {
+                // Stepping by index instead of adding up dt's keeps the round off from building up
+                State state = stateAt(k == steps ? startTimes[i + 1] : startTimes[i] + Math.min(k * dt, T));
+                results.time.add(state.t());
+                results.x.add(state.x());
+                results.y.add(state.y());
+                results.rad.add(state.rad());
+                results.deg.add(Math.toDegrees(state.rad()));
+                results.vel.add(state.vel());
+                results.acc.add(state.acc());
+                results.jerk.add(state.jerk());
+                results.roc.add(state.roc());
+                results.omega.add(state.omega());
+
+                int last = results.size() - 1;
+                results.distance.add(last == 0 ? 0.0 : results.distance.get(last - 1) +
+                        Math.hypot(state.x() - results.x.get(last - 1), state.y() - results.y.get(last - 1)));
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * @return the number of dt steps it takes to cover segment i, the last of which ends exactly at the end of the segment
+     */
+    private int steps(int i, double dt) {
+        return Math.max(1, (int) Math.ceil((startTimes[i + 1] - startTimes[i]) / dt - 1e-9));
+    }
+}
@@ -1,8 +1,10 @@
 import util.BetterArrayList;
 import util.Path;
+import util.PathResults;
 import util.Waypoint;
 
 import javax.swing.*;
+import java.awt.Point;
 import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.stream.Collectors;
@@ -41,6 +43,28 @@ public final class Utils {
         output.append("};\n");
     }
 
+    /**
+     * Finds the click point of a path that is within 3 pixels of the cursor in both x and y
+     *
+     * @param path   the path to search through
+     * @param p      the cursor point
+     * @param xScale the pixels per ft in x
+     * @param yScale the pixels per ft in y
+     *
+     * @return the index of the first click point under the cursor, or -1 if there isn't one
+     */
+    static int findClickedPoint(Path path, Point p, double xScale, double yScale) {
+        for (int i = 0; i < path.clickPoints.size(); i++) {
+            Waypoint po = path.clickPoints.get(i);
+
+            if (Math.abs(p.x - (int) (po.getX() * xScale)) <= 3 && Math.abs(p.y - (int) (po.getY() * yScale)) <= 3) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
     /**
      * A simple function that constrains a value from the specified min bound to the specified max bound
      *
@@ -55,15 +79,61 @@ public final class Utils {
     }
 
     public static BetterArrayList<Waypoint> convertResults(PathResults results) {
-        BetterArrayList<Waypoint> temp = new BetterArrayList<>();
+        return convertResults(results, 0);
+    }
 
-        for (int i = 0; i < results.time.size(); i++) {
+    /**
+     * Converts the samples in results from the specified index onwards to Waypoints
+     *
+     * @param results the results to convert
+     * @param from    the index of the first sample to convert
+     *
+     * @return a BetterArrayList with a Waypoint for each converted sample
+     */
+    public static BetterArrayList<Waypoint> convertResults(PathResults results, int from) {
+        return convertResults(results, from, results.size());
+    }
+
+    /**
+     * Converts the samples in results in [from, to) to Waypoints
+     *
+     * @param results the results to convert
+     * @param from    the index of the first sample to convert
+     * @param to      the index of the sample to stop before
+     *
+     * @return a BetterArrayList with a Waypoint for each converted sample
+     */
+    public static BetterArrayList<Waypoint> convertResults(PathResults results, int from, int to) {
+        BetterArrayList<Waypoint> temp = new BetterArrayList<>(to - from);
+
+        for (int i = from; i < to; i++) {
             temp.add(new Waypoint(results.x.get(i), results.y.get(i), results.rad.get(i), results.vel.get(i), results.acc.get(i)));
         }
 
         return temp;
     }
 
+    /**
+     * Builds a new list out of the first from elements of previous, all of middle and then the last kept elements of previous. The list
+     * that's passed in isn't modified, so it's safe to keep drawing it until the new one replaces it. Waypoints don't hold a time or
+     * distance, so the points of samples that have only moved in time and distance can be kept as they are.
+     *
+     * @param previous the list to keep the start and end of
+     * @param from     the number of elements to keep from the start of previous
+     * @param middle   the elements to put after them
+     * @param kept     the number of elements to keep from the end of previous
+     *
+     * @return the patched list
+     */
+    static BetterArrayList<Waypoint> patch(BetterArrayList<Waypoint> previous, int from, BetterArrayList<Waypoint> middle, int kept) {
+        BetterArrayList<Waypoint> temp = new BetterArrayList<>(from + middle.size() + kept);
+        temp.addAll(previous.subList(0, from));
+        temp.addAll(middle);
+        temp.addAll(previous.subList(previous.size() - kept, previous.size()));
+
+        return temp;
+    }
+
     /**
      * A function that takes a BetterArrayList as an argument, and performs a deep copy of tall the values A deep copy means that an object
      * is copied along with all the object to which it refers. In this case, all the values of the objects that the BetterArrayList refer to
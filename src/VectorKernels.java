@@ -0,0 +1,149 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import util.PathOffsets;
+import util.PathResults;
+
+/**
+ * The sampling and offset kernels written with the incubating Vector API, working on a whole vector of samples at a time. They do the same
+ * arithmetic in the same order as the scalar kernels they stand in for, so everything comes out bit for bit the same. The heading's atan2,
+ * sin and cos are the exception to working a vector at a time: the lanewise ones can differ from Math's in the last place, so they are done
+ * with Math a lane at a time. Whatever doesn't fill a whole vector, and any vector with a stopped sample in it, is handed to the scalar
+ * kernel.
+ * <p>
+ * Only Kernels should call into this class, since loading it without jdk.incubator.vector fails.
+ */
+final class VectorKernels {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final double[] IOTA = new double[SPECIES.length()];
+
+    static {
+        for (int i = 0; i < IOTA.length; i++) {
+            IOTA[i] = i;
+        }
+    }
+
+    private VectorKernels() {
+    }
+
+    /**
+     * @return the number of doubles in a vector on this hardware
+     */
+    static int lanes() {
+        return SPECIES.length();
+    }
+
+    /**
+     * @see QuinticPolynomial#sample(QuinticPolynomial, QuinticPolynomial, double, int, PathResults)
+     */
+    static double sample(QuinticPolynomial xqp, QuinticPolynomial yqp, double stepsPerSecond, int count, PathResults results) {
+        int lanes = SPECIES.length();
+        double[] xCoeffs = xqp.getCoeffs(), yCoeffs = yqp.getCoeffs();
+        // @formatter:off
+        double xa = xCoeffs[0], xb = xCoeffs[1], xc = xCoeffs[2], xd = xCoeffs[3], xf = xCoeffs[4], xg = xCoeffs[5];
+        double ya = yCoeffs[0], yb = yCoeffs[1], yc = yCoeffs[2], yd = yCoeffs[3], yf = yCoeffs[4], yg = yCoeffs[5];
+        double xa5 = 5.0 * xa, xb4 = 4.0 * xb, xc3 = 3.0 * xc, xd2 = 2.0 * xd, xa20 = 20.0 * xa, xb12 = 12.0 * xb, xc6 = 6.0 * xc;
+        double ya5 = 5.0 * ya, yb4 = 4.0 * yb, yc3 = 3.0 * yc, yd2 = 2.0 * yd, ya20 = 20.0 * ya, yb12 = 12.0 * yb, yc6 = 6.0 * yc;
+        double xa60 = 60.0 * xa, xb24 = 24.0 * xb, ya60 = 60.0 * ya, yb24 = 24.0 * yb;
+        // @formatter:on
+        DoubleVector iota = DoubleVector.fromArray(SPECIES, IOTA, 0);
+        double[] vxLanes = new double[lanes], vyLanes = new double[lanes];
+        double max_acc = 0.0;
+        int k = 0;
+
+        for (; k + lanes <= count; k += lanes) {
+            DoubleVector t = iota.add(k).div(stepsPerSecond);
+
+            DoubleVector px = t.mul(xa).add(xb).mul(t).add(xc).mul(t).add(xd).mul(t).add(xf).mul(t).add(xg);
+            DoubleVector py = t.mul(ya).add(yb).mul(t).add(yc).mul(t).add(yd).mul(t).add(yf).mul(t).add(yg);
+            DoubleVector vx = t.mul(xa5).add(xb4).mul(t).add(xc3).mul(t).add(xd2).mul(t).add(xf);
+            DoubleVector vy = t.mul(ya5).add(yb4).mul(t).add(yc3).mul(t).add(yd2).mul(t).add(yf);
+            DoubleVector ax = t.mul(xa20).add(xb12).mul(t).add(xc6).mul(t).add(xd2);
+            DoubleVector ay = t.mul(ya20).add(yb12).mul(t).add(yc6).mul(t).add(yd2);
+            DoubleVector jx = t.mul(xa60).add(xb24).mul(t).add(xc6);
+            DoubleVector jy = t.mul(ya60).add(yb24).mul(t).add(yc6);
+
+            DoubleVector v2 = vx.mul(vx).add(vy.mul(vy)), v = v2.lanewise(VectorOperators.SQRT);
+
+            // The direction of travel of a stopped sample comes from the signs of its zeros, which is left to the scalar kernel
+            if (!v.compare(VectorOperators.GT, 0.0).allTrue()) {
+                max_acc = Math.max(max_acc, QuinticPolynomial.sample(xqp, yqp, stepsPerSecond, k, k + lanes, results, false));
+                continue;
+            }
+
+            DoubleVector cos = vx.div(v), sin = vy.div(v);
+            DoubleVector acc = ax.mul(cos).add(ay.mul(sin));
+            DoubleVector denominator = vx.mul(ay).sub(vy.mul(ax));
+            DoubleVector roc = v2.mul(v).div(denominator).blend(Double.POSITIVE_INFINITY,
+                    denominator.abs().compare(VectorOperators.LT, Utils.kEpsilon));
+
+            int at = results.size();
+            vx.intoArray(vxLanes, 0);
+            vy.intoArray(vyLanes, 0);
+            double[] rad = results.rad.addSlots(lanes);
+            for (int i = 0; i < lanes; i++) {
+                rad[at + i] = Math.atan2(vyLanes[i], vxLanes[i]);
+            }
+            DoubleVector yaw = DoubleVector.fromArray(SPECIES, rad, at);
+
+            t.intoArray(results.time.addSlots(lanes), at);
+            px.intoArray(results.x.addSlots(lanes), at);
+            py.intoArray(results.y.addSlots(lanes), at);
+            yaw.mul(180.0 / Math.PI).intoArray(results.deg.addSlots(lanes), at);
+            v.intoArray(results.vel.addSlots(lanes), at);
+            acc.intoArray(results.acc.addSlots(lanes), at);
+            jx.mul(cos).add(jy.mul(sin)).intoArray(results.jerk.addSlots(lanes), at);
+            roc.intoArray(results.roc.addSlots(lanes), at);
+            v.div(roc).intoArray(results.omega.addSlots(lanes), at);
+
+            // The running distance is a prefix sum, so it stays scalar
+            double[] distance = results.distance.addSlots(lanes), x = results.x.array(), y = results.y.array();
+            for (int i = at; i < at + lanes; i++) {
+                distance[i] = i == 0 ? 0.0 : distance[i - 1] + Math.hypot(x[i] - x[i - 1], y[i] - y[i - 1]);
+            }
+
+            max_acc = Math.max(max_acc, acc.abs().reduceLanes(VectorOperators.MAX));
+        }
+
+        if (k < count) {
+            max_acc = Math.max(max_acc, QuinticPolynomial.sample(xqp, yqp, stepsPerSecond, k, count, results, false));
+        }
+
+        return max_acc;
+    }
+
+    /**
+     * @see PathOffsets#offset(PathResults, int, int, double[], double[], double[][], double[][], double[][])
+     */
+    static void offset(PathResults results, int from, int to, double[] forward, double[] lateral, double[][] x, double[][] y,
+            double[][] v) {
+        int lanes = SPECIES.length(), i = from;
+        double[] rad = results.rad.array(), cx = results.x.array(), cy = results.y.array();
+        double[] vel = results.vel.array(), omega = results.omega.array();
+        double[] sinLanes = new double[lanes], cosLanes = new double[lanes];
+
+        for (; i + lanes <= to; i += lanes) {
+            for (int j = 0; j < lanes; j++) {
+                sinLanes[j] = Math.sin(rad[i + j]);
+                cosLanes[j] = Math.cos(rad[i + j]);
+            }
+
+            DoubleVector cos = DoubleVector.fromArray(SPECIES, cosLanes, 0), sin = DoubleVector.fromArray(SPECIES, sinLanes, 0);
+            DoubleVector px = DoubleVector.fromArray(SPECIES, cx, i), py = DoubleVector.fromArray(SPECIES, cy, i);
+
+            for (int k = 0; k < lateral.length; k++) {
+                double f = forward == null ? 0.0 : forward[k], l = lateral[k];
+                px.add(cos.mul(f)).sub(sin.mul(l)).intoArray(x[k], i - from);
+                py.add(sin.mul(f)).add(cos.mul(l)).intoArray(y[k], i - from);
+
+                if (v != null) {
+                    DoubleVector.fromArray(SPECIES, vel, i).sub(DoubleVector.fromArray(SPECIES, omega, i).mul(l)).intoArray(v[k], i - from);
+                }
+            }
+        }
+
+        if (i < to) {
+            PathOffsets.offset(results, i, to, forward, lateral, x, y, v, i - from, false);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+import util.PathResults;
+import util.Waypoint;
+
+import java.util.Arrays;
+
+/**
+ * Re-times the geometry of a generated path so that it goes as fast as the robot can, instead of as fast as the quintics happen to.
+ * <p>
+ * The path is resampled every ds along its length, and each sample gets a speed cap from the curvature there: neither wheel can go faster
+ * than maxWheelVel, which is |v| (1 + |k| trackWidth / 2) for curvature k, and the centripetal acceleration v^2 |k| can't go over
+ * maxCentripetalAccel. The samples at the waypoints are capped at the waypoints' speeds too. A forward pass then limits how fast the speed
+ * can grow from one sample to the next with maxAccel, and a backward pass does the same for slowing down, which gives the time optimal
+ * speeds in O(n). The time between samples follows from their average speed.
+ * <p>
+ * PathBatch re-times the paths it writes out with this when it's given --profile. The GUI still shows the paths as the quintics time them.
+ */
+public final class VelocityProfile {
+    private final double maxWheelVel; // ft/s
+    private final double maxAccel; // ft/s^2
+    private final double maxCentripetalAccel; // ft/s^2
+    private final double robotTrkWidth; // ft
+
+    public VelocityProfile(double maxWheelVel, double maxAccel, double maxCentripetalAccel, double robotTrkWidth) {
+        this.maxWheelVel = maxWheelVel;
+        this.maxAccel = maxAccel;
+        this.maxCentripetalAccel = maxCentripetalAccel;
+        this.robotTrkWidth = robotTrkWidth;
+    }
+
+    /**
+     * Re-times a path with only its start and end speeds given, so it's free to go as fast as the limits allow everywhere in between
+     *
+     * @param index    the arc length index of the path to re-time
+     * @param ds       the distance between samples, in ft
+     * @param startVel the speed at the start of the path, capped at what the limits allow there
+     * @param endVel   the speed at the end of the path, capped at what the limits allow there
+     *
+     * @return the re-timed samples, with every column filled in. acc is the constant acceleration from each sample to the next
+     */
+    public PathResults profile(ArcLengthIndex index, double ds, double startVel, double endVel) {
+        return profile(index, ds, new double[]{0.0, index.getLength()}, new double[]{startVel, endVel});
+    }
+
+    /**
+     * Re-times a path that was generated through waypoints, which go no faster than their speeds. Each waypoint's speed caps the sample
+     * nearest to it, and the forward and backward passes carry that on to the samples around it, the same as the start and end speeds.
+     *
+     * @param index     the arc length index of the path to re-time
+     * @param ds        the distance between samples, in ft
+     * @param waypoints the waypoints the path was generated through, one more than the segments of index's trajectory
+     *
+     * @return the re-timed samples, with every column filled in. acc is the constant acceleration from each sample to the next
+     */
+    public PathResults profile(ArcLengthIndex index, double ds, Waypoint[] waypoints) {
+        double[] distances = new double[waypoints.length], vels = new double[waypoints.length];
+        for (int i = 0; i < waypoints.length; i++) {
+            distances[i] = index.arcLengthTo(index.getTrajectory().getStartTime(i));
+            vels[i] = waypoints[i].getV();
+        }
+
+        return profile(index, ds, distances, vels);
+    }
+
+    /**
+     * @param capDistances the distances along the path of the speed caps
+     * @param capVels      the speed caps, which each apply to the sample nearest to their distance
+     */
+    private PathResults profile(ArcLengthIndex index, double ds, double[] capDistances, double[] capVels) {
+        PathResults results = index.resample(ds);
+        int n = results.size();
+
+        if (n == 0) {
+            return results;
+        }
+
+        double[] vel = new double[n];
+        for (int i = 0; i < n; i++) {
+            vel[i] = velocityCap(results.roc.get(i));
+        }
+
+        for (int c = 0; c < capDistances.length; c++) {
+            int i = nearestSample(results, capDistances[c]);
+            vel[i] = Math.min(vel[i], Math.abs(capVels[c]));
+        }
+
+        for (int i = 1; i < n; i++) {
+            vel[i] = Math.min(vel[i], reachable(vel[i - 1], results.distance.get(i) - results.distance.get(i - 1)));
+        }
+
+        for (int i = n - 2; i >= 0; i--) {
+            vel[i] = Math.min(vel[i], reachable(vel[i + 1], results.distance.get(i + 1) - results.distance.get(i)));
+        }
+
+        // Only time and everything worked out from speed changes, the geometry stays as it was resampled
+        results.time.set(0, 0.0);
+        for (int i = 0; i < n; i++) {
+            double roc = results.roc.get(i);
+            results.vel.set(i, vel[i]);
+            results.omega.set(i, vel[i] / roc);
+
+            if (i >= 1) {
+                double ds_i = results.distance.get(i) - results.distance.get(i - 1);
+                double vSum = vel[i] + vel[i - 1];
+                // Both speeds are only 0 for a path of no length
+                results.time.set(i, results.time.get(i - 1) + (vSum > 0.0 ? 2.0 * ds_i / vSum : 0.0));
+            }
+        }
+
+        for (int i = 0; i < n; i++) {
+            int from = Math.min(i, n - 2), to = from + 1;
+            double ds_i = n > 1 ? results.distance.get(to) - results.distance.get(from) : 0.0;
+            results.acc.set(i, ds_i > 0.0 ? (vel[to] * vel[to] - vel[from] * vel[from]) / (2.0 * ds_i) : 0.0);
+        }
+
+        for (int i = 0; i < n; i++) {
+            int from = Math.min(i, n - 2), to = from + 1;
+            double dt = n > 1 ? results.time.get(to) - results.time.get(from) : 0.0;
+            results.jerk.set(i, dt > 0.0 ? (results.acc.get(to) - results.acc.get(from)) / dt : 0.0);
+        }
+
+        return results;
+    }
+
+    /**
+     * @return the fastest the robot can go where the radius of curvature is roc
+     */
+    private double velocityCap(double roc) {
+        double curvature = Double.isInfinite(roc) ? 0.0 : Math.abs(1.0 / roc);
+        double wheelCap = maxWheelVel / (1.0 + curvature * robotTrkWidth / 2.0);
+
+        if (curvature == 0.0) {
+            return wheelCap;
+        }
+
+        return Math.min(wheelCap, Math.sqrt(maxCentripetalAccel / curvature));
+    }
+
+    /**
+     * @return the index of the sample whose distance along the path is closest to s
+     */
+    private static int nearestSample(PathResults results, double s) {
+        int n = results.size(), i = Arrays.binarySearch(results.distance.array(), 0, n, s);
+        if (i >= 0) {
+            return i;
+        }
+
+        int after = Math.min(-i - 1, n - 1), before = Math.max(after - 1, 0);
+        return s - results.distance.get(before) <= results.distance.get(after) - s ? before : after;
+    }
+
+    /**
+     * @return the fastest speed that can be reached ds away from vel at maxAccel
+     */
+    private double reachable(double vel, double ds) {
+        return Math.sqrt(vel * vel + 2.0 * maxAccel * ds);
+    }
+}
@@ -0,0 +1,175 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of primitive doubles, so that columns of samples don't have to box every value the way an ArrayList&lt;Double&gt; does.
+ * The method names follow BetterArrayList where they overlap.
+ */
+public final class DoubleList {
+    private double[] elements;
+    private int size;
+
+    /**
+     * Default constructor
+     */
+    public DoubleList() {
+        this(10);
+    }
+
+    /**
+     * Constructor for creating a DoubleList with the specified initial capacity
+     *
+     * @param capacity the initial capacity
+     */
+    public DoubleList(int capacity) {
+        this.elements = new double[Math.max(capacity, 1)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public double get(int index) {
+        checkIndex(index);
+        return elements[index];
+    }
+
+    public void set(int index, double value) {
+        checkIndex(index);
+        elements[index] = value;
+    }
+
+    public void add(double value) {
+        if (size == elements.length) {
+            grow(size + 1);
+        }
+
+        elements[size++] = value;
+    }
+
+    /**
+     * Appends the elements of other from the specified index to its end
+     *
+     * @param other the list to copy from
+     * @param from  the index in other to start copying at
+     */
+    public void addAll(DoubleList other, int from) {
+        addRange(other, from, other.size);
+    }
+
+    /**
+     * Appends the elements of other in [from, to) to its end
+     *
+     * @param other the list to copy from
+     * @param from  the index in other to start copying at
+     * @param to    the index in other to stop copying before
+     */
+    public void addRange(DoubleList other, int from, int to) {
+        int count = to - from;
+        ensureCapacity(size + count);
+        System.arraycopy(other.elements, from, elements, size, count);
+        size += count;
+    }
+
+    /**
+     * Appends the elements of other from the specified index to its end, with offset added to each of them
+     *
+     * @param other  the list to copy from
+     * @param from   the index in other to start copying at
+     * @param offset the value to add to every copied element
+     */
+    public void addAll(DoubleList other, int from, double offset) {
+        int count = other.size - from;
+        ensureCapacity(size + count);
+
+        for (int i = 0; i < count; i++) {
+            elements[size + i] = other.elements[from + i] + offset;
+        }
+
+        size += count;
+    }
+
+    /**
+     * Adds count elements with unspecified values, for bulk writers like vectorized kernels to fill in straight in the backing array.
+     *
+     * @param count the number of elements to add
+     *
+     * @return the backing array, with the new elements starting at the size from before the call. It is only valid until the list grows
+     * again
+     */
+    public double[] addSlots(int count) {
+        ensureCapacity(size + count);
+        size += count;
+        return elements;
+    }
+
+    /**
+     * @return the backing array, of which only the first size() elements are meaningful. It is only valid until the list grows again
+     */
+    public double[] array() {
+        return elements;
+    }
+
+    /**
+     * Returns the last element in this DoubleList
+     *
+     * @return the last element in this DoubleList
+     */
+    public double getLast() {
+        return get(size - 1);
+    }
+
+    /**
+     * Sets the last element in this DoubleList to the specified value
+     *
+     * @param value the value to replace the existing one with
+     */
+    public void setLast(double value) {
+        set(size - 1, value);
+    }
+
+    /**
+     * Removes every element, but keeps the capacity so the list can be refilled without allocating
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Makes sure that at least the specified number of elements fit without growing
+     *
+     * @param capacity the number of elements that need to fit
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > elements.length) {
+            grow(capacity);
+        }
+    }
+
+    /**
+     * @return a copy of the elements in this DoubleList
+     */
+    public double[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    private void grow(int minCapacity) {
+        elements = Arrays.copyOf(elements, Math.max(minCapacity, elements.length + (elements.length >> 1)));
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+    }
+}
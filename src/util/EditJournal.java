@@ -0,0 +1,523 @@
+package util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.BooleanSupplier;
+import java.util.zip.CRC32;
+
+/**
+ * An append only log of every edit to the click points of a session, so that a crash loses at most the last BATCH_MILLIS of edits. Each
+ * edit is a record of a few dozen bytes that is queued for a background thread, which appends everything queued in one write and then
+ * forces it to disk once for the whole batch.
+ * <p>
+ * Once the journal has grown past COMPACT_BYTES, a snapshot of the session is written to a temporary file, forced and moved over the
+ * previous snapshot, and then the journal is emptied. A snapshot is made of the same records as the journal, the ones that rebuild the
+ * session from nothing, along with the sequence number of the last record it includes so that recovering from a crash between moving the
+ * snapshot and emptying the journal doesn't apply anything twice. Recovering replays the snapshot and then the journal, stopping at the
+ * first record that was only partly written, fails its CRC or has an Op this version doesn't know.
+ * <p>
+ * The journal holds a lock on a file in its directory from when it's opened until it's closed, so a second instance of the program can't
+ * replay, delete or append to the session of one that's still running. It can't open the journal at all, and has to go without.
+ * <p>
+ * Record layout, little endian: int length of the body, the body (long sequence number, byte Op, the Op's arguments), int CRC32 of the
+ * body.
+ * Names are a short length and UTF-8 bytes, and Waypoints are x, y, rad, deg, v and a. Both angles are kept since the GUI sets one or the
+ * other depending on the edit, and working one out from the other isn't exact.
+ */
+public final class EditJournal {
+    public static final long BATCH_MILLIS = 100;
+    public static final long COMPACT_BYTES = 256 * 1024;
+
+    private static final String JOURNAL = "session.journal", SNAPSHOT = "session.snapshot", LOCK = "session.lock";
+    private static final int SNAPSHOT_MAGIC = 0x4E534750; // "PGSN" in little endian
+    private static final int SNAPSHOT_VERSION = 1;
+    // Stands in for the current path in set, the same as PathGUITool's PointMarkers
+    private static final String CURRENT = "current";
+    private static final int WAYPOINT_BYTES = 6 * Double.BYTES;
+
+    /**
+     * The edits PathGUITool makes, which all do the same thing to the session as they do in the GUI
+     */
+    private enum Op {
+        ADD, SET, UNDO, REDO, STORE, IMPORT, CLEAR
+    }
+
+    private static final Op[] OPS = Op.values();
+
+    /**
+     * The click points that make up a session, in the same fields PathGUITool keeps them in. Only the click points are journaled, the rest
+     * of each path has to be generated again after recovering.
+     */
+    public record Session(Path currentPath, LinkedHashMap<String, Path> paths, Path redoBuffer) {
+    }
+
+    // What the writer thread is handed, records to append and then, if it isn't null, a snapshot to replace the journal with
+    private record Batch(ByteBuffer records, ByteBuffer snapshot) {
+    }
+
+    // Tells the writer thread to stop once everything before it has been written
+    private static final Batch CLOSE = new Batch(null, null);
+
+    private final File dir;
+    private final Session session;
+    private final FileChannel channel;
+    // Holds the lock on LOCK until the journal is closed
+    private final FileChannel lock;
+    private final long compactBytes;
+    private final LinkedBlockingQueue<Batch> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private long seq;
+    private long journalBytes;
+    private volatile boolean closed;
+
+    private EditJournal(File dir, Session session, FileChannel channel, FileChannel lock, long compactBytes, long seq, long journalBytes) {
+        this.dir = dir;
+        this.session = session;
+        this.channel = channel;
+        this.lock = lock;
+        this.compactBytes = compactBytes;
+        this.seq = seq;
+        this.journalBytes = journalBytes;
+
+        if (channel != null) {
+            this.writer = new Thread(this::write, "EditJournal writer");
+            writer.setDaemon(true);
+            writer.start();
+        } else {
+            this.writer = null;
+        }
+    }
+
+    /**
+     * @return a journal that doesn't record anything, for when the real one can't be opened
+     */
+    public static EditJournal disabled() {
+        return new EditJournal(null, null, null, null, 0, 0, 0);
+    }
+
+    /**
+     * Starts journaling the session in dir, first replaying any session that is already there into it if recover says to, or deleting it
+     * if not. The session should be empty to begin with, and is recorded from then on by calling the method for each edit after making it.
+     *
+     * @param session the session the edits are made to, which is read from when the journal is compacted. It is only ever read on the
+     *                thread that records the edits
+     * @param recover asked whether to recover the session that's already in dir, which is what a crash leaves behind. It isn't asked if
+     *                there isn't one, or if another instance has the journal open
+     *
+     * @throws IOException if the journal couldn't be opened, including when another instance has it open
+     */
+    public static EditJournal open(File dir, Session session, BooleanSupplier recover) throws IOException {
+        return open(dir, session, recover, COMPACT_BYTES);
+    }
+
+    /**
+     * The same as open, but compacting once the journal has grown past compactBytes instead of COMPACT_BYTES
+     */
+    static EditJournal open(File dir, Session session, BooleanSupplier recover, long compactBytes) throws IOException {
+        Files.createDirectories(dir.toPath());
+        FileChannel lock = FileChannel.open(new File(dir, LOCK).toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+
+        try {
+            if (tryLock(lock) == null) {
+                throw new IOException("Another instance is already journaling its session to " + dir);
+            }
+
+            if (hasSession(dir) && !recover.getAsBoolean()) {
+                delete(dir);
+            }
+
+            return openJournal(dir, session, lock, compactBytes);
+        } catch (IOException | RuntimeException e) {
+            // Closing the channel gives up the lock
+            lock.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return the lock, or null if another instance holds it. Another journal in this JVM counts as another instance
+     */
+    private static FileLock tryLock(FileChannel lock) throws IOException {
+        try {
+            return lock.tryLock();
+        } catch (OverlappingFileLockException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return whether dir has a session in it that wasn't closed with discard
+     */
+    private static boolean hasSession(File dir) {
+        return new File(dir, SNAPSHOT).length() > 0 || new File(dir, JOURNAL).length() > 0;
+    }
+
+    /**
+     * Replays the snapshot and journal in dir into the session and opens the journal to append to, once the lock is held
+     */
+    private static EditJournal openJournal(File dir, Session session, FileChannel lock, long compactBytes) throws IOException {
+        long seq = 0;
+
+        File snapshot = new File(dir, SNAPSHOT);
+        if (snapshot.length() > 0) {
+            ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(snapshot.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+            if (buf.remaining() < 16 || buf.getInt() != SNAPSHOT_MAGIC || buf.getInt() > SNAPSHOT_VERSION) {
+                throw new IOException(snapshot + " isn't a session snapshot");
+            }
+
+            seq = buf.getLong();
+            if (replay(buf, session, Long.MIN_VALUE, new long[1]) != buf.limit()) {
+                // Snapshots are moved into place whole, so a bad one isn't from a crash
+                throw new IOException(snapshot + " is corrupt");
+            }
+        }
+
+        java.nio.file.Path journal = new File(dir, JOURNAL).toPath();
+        byte[] journaled = Files.exists(journal) ? Files.readAllBytes(journal) : new byte[0];
+        ByteBuffer buf = ByteBuffer.wrap(journaled).order(ByteOrder.LITTLE_ENDIAN);
+
+        // Anything after the last whole record is from a write the crash cut off
+        long[] last = {seq};
+        int valid = replay(buf, session, seq, last);
+
+        FileChannel channel = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            channel.truncate(valid);
+            channel.position(valid);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+
+        return new EditJournal(dir, session, channel, lock, compactBytes, last[0], valid);
+    }
+
+    public void add(Waypoint waypoint) {
+        record(Op.ADD, null, -1, List.of(waypoint));
+    }
+
+    /**
+     * Records the click point at index of a path after it has been moved or edited
+     *
+     * @param pathName "current" for the current path, otherwise its name in paths
+     */
+    public void set(String pathName, int index, Waypoint waypoint) {
+        record(Op.SET, pathName, index, List.of(waypoint));
+    }
+
+    public void undo() {
+        record(Op.UNDO, null, -1, List.of());
+    }
+
+    public void redo() {
+        record(Op.REDO, null, -1, List.of());
+    }
+
+    /**
+     * Records the current path being moved into paths, the same as addToPathsAndClear does to it
+     */
+    public void store() {
+        record(Op.STORE, null, -1, List.of());
+    }
+
+    /**
+     * Records a path from somewhere else, like a file, being added to paths, the same as addToPathsAndClear does with it
+     */
+    public void importPath(Path path) {
+        record(Op.IMPORT, null, -1, path.clickPoints);
+    }
+
+    public void clear() {
+        record(Op.CLEAR, null, -1, List.of());
+    }
+
+    /**
+     * Stops journaling and deletes the session, for when the program exits normally and there is nothing to recover
+     */
+    public void discard() {
+        if (writer == null) {
+            return;
+        }
+
+        // Still holding the lock, so another instance can't open the session in between
+        stop();
+        delete(dir);
+        unlock();
+    }
+
+    /**
+     * Writes out everything recorded so far and stops journaling, leaving the session to be recovered
+     */
+    public void close() {
+        if (writer == null) {
+            return;
+        }
+
+        stop();
+        unlock();
+    }
+
+    /**
+     * Deletes the session in dir without recovering it. The lock file is left, since another instance may be waiting on it
+     */
+    private static void delete(File dir) {
+        new File(dir, JOURNAL).delete();
+        new File(dir, SNAPSHOT).delete();
+    }
+
+    /**
+     * Waits for the writer thread to write out everything recorded so far and closes the journal
+     */
+    private void stop() {
+        if (!closed) {
+            closed = true;
+            queue.add(CLOSE);
+        }
+
+        try {
+            writer.join();
+            channel.close();
+        } catch (InterruptedException | IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void unlock() {
+        try {
+            lock.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void record(Op op, String pathName, int index, List<Waypoint> waypoints) {
+        if (closed || channel == null) {
+            return;
+        }
+
+        ByteBuffer buf = encode(++seq, op, pathName, index, waypoints);
+        journalBytes += buf.remaining();
+        if (journalBytes > compactBytes) {
+            queue.add(new Batch(buf, snapshot()));
+            journalBytes = 0;
+        } else {
+            queue.add(new Batch(buf, null));
+        }
+    }
+
+    /**
+     * @return the records that rebuild the session as it is now, after the snapshot header
+     */
+    private ByteBuffer snapshot() {
+        List<ByteBuffer> records = new ArrayList<>();
+        session.paths().values().forEach(path -> records.add(encode(0, Op.IMPORT, null, -1, path.clickPoints)));
+        session.currentPath().clickPoints.forEach(w -> records.add(encode(0, Op.ADD, null, -1, List.of(w))));
+
+        // The redo buffer is rebuilt by adding its points to the current path and undoing them again, last point first
+        List<Waypoint> redo = session.redoBuffer().clickPoints;
+        for (int i = redo.size() - 1; i >= 0; i--) {
+            records.add(encode(0, Op.ADD, null, -1, List.of(redo.get(i))));
+        }
+        for (int i = 0; i < redo.size(); i++) {
+            records.add(encode(0, Op.UNDO, null, -1, List.of()));
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate(16 + records.stream().mapToInt(ByteBuffer::remaining).sum()).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION).putLong(seq);
+        records.forEach(buf::put);
+
+        return buf.flip();
+    }
+
+    /**
+     * The writer thread, which appends every batch that comes in within BATCH_MILLIS of the first one and then forces them all at once,
+     * until it's closed
+     */
+    private void write() {
+        List<Batch> batches = new ArrayList<>();
+        boolean done = false;
+
+        try {
+            while (!done) {
+                batches.add(queue.take());
+                if (!closed) {
+                    Thread.sleep(BATCH_MILLIS);
+                }
+                queue.drainTo(batches);
+
+                for (Batch batch : batches) {
+                    if (batch == CLOSE) {
+                        done = true;
+                        continue;
+                    }
+
+                    while (batch.records().hasRemaining()) {
+                        channel.write(batch.records());
+                    }
+
+                    if (batch.snapshot() != null) {
+                        compact(batch.snapshot());
+                    }
+                }
+
+                channel.force(false);
+                batches.clear();
+            }
+        } catch (IOException | InterruptedException e) {
+            // Nothing more can be journaled, but the session carries on without it
+            System.err.println("The edit journal stopped working, edits from now on won't be recovered after a crash");
+            e.printStackTrace();
+            closed = true;
+        }
+    }
+
+    private void compact(ByteBuffer snapshot) throws IOException {
+        java.nio.file.Path tmp = new File(dir, SNAPSHOT + ".tmp").toPath();
+
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (snapshot.hasRemaining()) {
+                out.write(snapshot);
+            }
+            out.force(false);
+        }
+
+        Files.move(tmp, new File(dir, SNAPSHOT).toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel.truncate(0);
+        channel.position(0);
+    }
+
+    /**
+     * Applies every whole record in buf with a sequence number greater than after to the session
+     *
+     * @param last set to the sequence number of the last record
+     *
+     * @return the position just past the last whole record
+     */
+    private static int replay(ByteBuffer buf, Session session, long after, long[] last) throws IOException {
+        CRC32 crc = new CRC32();
+
+        while (buf.remaining() >= Integer.BYTES) {
+            int start = buf.position(), length = buf.getInt();
+            if (length < Long.BYTES + 1 || length > buf.remaining() - Integer.BYTES) {
+                buf.position(start);
+                break;
+            }
+
+            crc.reset();
+            crc.update(buf.slice(start + Integer.BYTES, length));
+            if ((int) crc.getValue() != buf.getInt(start + Integer.BYTES + length)) {
+                buf.position(start);
+                break;
+            }
+
+            long seq = buf.getLong();
+            int op = buf.get();
+            // An op this version doesn't know passed its CRC but can't be replayed, so it ends the journal the same as a bad CRC does
+            if (op < 0 || op >= OPS.length) {
+                buf.position(start);
+                break;
+            }
+
+            if (seq > after) {
+                try {
+                    apply(buf, session, OPS[op]);
+                } catch (RuntimeException e) {
+                    // A whole record with a good CRC that can't be applied means the journal doesn't match its snapshot
+                    throw new IOException("Record " + seq + " doesn't apply to the session", e);
+                }
+            }
+
+            last[0] = Math.max(last[0], seq);
+            buf.position(start + Integer.BYTES + length + Integer.BYTES);
+        }
+
+        return buf.position();
+    }
+
+    private static void apply(ByteBuffer buf, Session session, Op op) {
+        Path current = session.currentPath();
+
+        switch (op) {
+            case ADD -> {
+                current.clickPoints.add(getWaypoint(buf));
+                session.redoBuffer().clear();
+            }
+            case SET -> {
+                byte[] name = new byte[buf.getShort()];
+                buf.get(name);
+                String pathName = new String(name, StandardCharsets.UTF_8);
+                int index = buf.getInt();
+
+                Path path = pathName.equals(CURRENT) ? current : session.paths().get(pathName);
+                path.clickPoints.set(index, getWaypoint(buf));
+            }
+            case UNDO -> session.redoBuffer().clickPoints.add(current.clickPoints.removeLast());
+            case REDO -> current.clickPoints.add(session.redoBuffer().clickPoints.removeLast());
+            case STORE -> {
+                Path path = new Path();
+                path.clickPoints.addAll(current.clickPoints);
+                session.paths().put(String.format("path%d", session.paths().size() + 1), path);
+                current.clear();
+            }
+            case IMPORT -> {
+                Path path = new Path();
+                int count = buf.getInt();
+                for (int i = 0; i < count; i++) {
+                    path.clickPoints.add(getWaypoint(buf));
+                }
+                session.paths().put(String.format("path%d", session.paths().size() + 1), path);
+            }
+            case CLEAR -> {
+                current.clear();
+                session.paths().clear();
+                session.redoBuffer().clear();
+            }
+        }
+    }
+
+    private static ByteBuffer encode(long seq, Op op, String pathName, int index, List<Waypoint> waypoints) {
+        byte[] name = pathName == null ? null : pathName.getBytes(StandardCharsets.UTF_8);
+        int length = Long.BYTES + 1 + (name == null ? 0 : Short.BYTES + name.length + Integer.BYTES) +
+                (op == Op.IMPORT ? Integer.BYTES : 0) + waypoints.size() * WAYPOINT_BYTES;
+
+        ByteBuffer buf = ByteBuffer.allocate(Integer.BYTES + length + Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(length).putLong(seq).put((byte) op.ordinal());
+
+        if (name != null) {
+            buf.putShort((short) name.length).put(name).putInt(index);
+        }
+
+        if (op == Op.IMPORT) {
+            buf.putInt(waypoints.size());
+        }
+
+        for (Waypoint w : waypoints) {
+            buf.putDouble(w.getX()).putDouble(w.getY()).putDouble(w.getRad()).putDouble(w.getDeg());
+            buf.putDouble(w.getV()).putDouble(w.getA());
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buf.slice(Integer.BYTES, length));
+        buf.putInt((int) crc.getValue());
+
+        return buf.flip();
+    }
+
+    private static Waypoint getWaypoint(ByteBuffer buf) {
+        return new Waypoint(buf.getDouble(), buf.getDouble(), buf.getDouble(), buf.getDouble(), buf.getDouble(), buf.getDouble());
+    }
+}
@@ -0,0 +1,111 @@
+package util;
+
+/**
+ * Cheaper stand-ins for the Math functions that the sampling and offset kernels call for every sample, used instead of them when the JVM is
+ * started with -Dpathgen.fastMath=true. Meant for regenerating big batches of paths, where the last few digits don't matter.
+ * <p>
+ * atan2 reduces its argument to [0, tan(pi / 12)] with the usual octant and pi / 6 identities and then sums the Taylor series up to z^17,
+ * so it is within ATAN2_MAX_ERROR of Math.atan2. sinCos reduces to [-pi / 4, pi / 4] and works out both series together, within
+ * SIN_COS_MAX_ERROR of Math.sin and Math.cos for |x| up to SIN_COS_MAX_ARG. hypot skips the overflow and underflow protection of
+ * Math.hypot, which no path comes anywhere near needing, and is within a relative HYPOT_MAX_ERROR of it. A path generated with them is
+ * within PATH_MAX_ERROR of the same path generated without them, in the x, y, heading and distance of its samples and the x and y of its
+ * wheels. FastMathTest and FastMathPathsTest check these bounds.
+ * <p>
+ * Only the scalar kernels use these, so Kernels sticks to them when the flag is given, even with -Dpathgen.vector=true. FastMathBenchmark
+ * measures them against Math.
+ */
+public final class FastMath {
+    public static final boolean ENABLED = Boolean.getBoolean("pathgen.fastMath");
+    public static final double ATAN2_MAX_ERROR = 1e-12; // rad
+    public static final double SIN_COS_MAX_ERROR = 1e-13;
+    public static final double SIN_COS_MAX_ARG = 1e5; // rad, past this the 2 part reduction by pi / 2 loses too many digits
+    public static final double HYPOT_MAX_ERROR = 1e-15;
+    public static final double PATH_MAX_ERROR = 1e-9; // ft or rad
+
+    private static final double TAN_PI_12 = 0.2679491924311227, SQRT_3 = 1.7320508075688772;
+    // pi / 2 split in 2 so that x - q * pi / 2 stays accurate
+    private static final double PI_2_HI = 1.5707963267948966, PI_2_LO = 6.123233995736766e-17;
+
+    private FastMath() {
+    }
+
+    public static double atan2(double y, double x) {
+        double ax = Math.abs(x), ay = Math.abs(y);
+
+        // Zeros, infinities and NaNs all have special cases that aren't worth repeating here
+        if (!(ax + ay > 0.0 && ax + ay < Double.POSITIVE_INFINITY)) {
+            return Math.atan2(y, x);
+        }
+
+        boolean steep = ay > ax;
+        double z = steep ? ax / ay : ay / ax, offset = 0.0;
+
+        // atan(z) = pi / 6 + atan((sqrt(3) z - 1) / (sqrt(3) + z)) brings z down from [tan(pi / 12), 1]
+        if (z > TAN_PI_12) {
+            z = (SQRT_3 * z - 1.0) / (SQRT_3 + z);
+            offset = Math.PI / 6.0;
+        }
+
+        // @formatter:off
+        double z2 = z * z;
+        double a = offset + z * (1.0 + z2 * (-1.0 / 3.0 + z2 * (1.0 / 5.0 + z2 * (-1.0 / 7.0 + z2 * (1.0 / 9.0 + z2 * (-1.0 / 11.0 +
+                z2 * (1.0 / 13.0 + z2 * (-1.0 / 15.0 + z2 * (1.0 / 17.0)))))))));
+        // @formatter:on
+
+        if (steep) {
+            a = Math.PI / 2.0 - a;
+        }
+        if (x < 0.0) {
+            a = Math.PI - a;
+        }
+
+        return Math.copySign(a, y);
+    }
+
+    /**
+     * Works out the sin and cos of x together
+     *
+     * @param out where to write sin(x) and then cos(x)
+     */
+    public static void sinCos(double x, double[] out) {
+        if (!(Math.abs(x) <= SIN_COS_MAX_ARG)) {
+            out[0] = Math.sin(x);
+            out[1] = Math.cos(x);
+            return;
+        }
+
+        double q = Math.rint(x * (2.0 / Math.PI));
+        // The fma rounds x - q * PI_2_HI only once, where the product on its own would lose the digits that cancel
+        double r = Math.fma(-q, PI_2_HI, x) - q * PI_2_LO, r2 = r * r;
+
+        // @formatter:off
+        double s = r * (1.0 + r2 * (-1.0 / 6.0 + r2 * (1.0 / 120.0 + r2 * (-1.0 / 5040.0 + r2 * (1.0 / 362880.0 + r2 * (-1.0 / 39916800.0 +
+                r2 * (1.0 / 6227020800.0)))))));
+        double c = 1.0 + r2 * (-0.5 + r2 * (1.0 / 24.0 + r2 * (-1.0 / 720.0 + r2 * (1.0 / 40320.0 + r2 * (-1.0 / 3628800.0 +
+                r2 * (1.0 / 479001600.0 + r2 * (-1.0 / 87178291200.0)))))));
+        // @formatter:on
+
+        switch ((int) q & 3) {
+            case 0 -> {
+                out[0] = s;
+                out[1] = c;
+            }
+            case 1 -> {
+                out[0] = c;
+                out[1] = -s;
+            }
+            case 2 -> {
+                out[0] = -s;
+                out[1] = -c;
+            }
+            default -> {
+                out[0] = -c;
+                out[1] = s;
+            }
+        }
+    }
+
+    public static double hypot(double x, double y) {
+        return Math.sqrt(x * x + y * y);
+    }
+}
@@ -0,0 +1,25 @@
+package util;
+
+/**
+ * The generated samples of the segment between 2 waypoints, along with copies of the waypoints it was generated from so that it can be told
+ * apart from a segment that needs to be generated again.
+ *
+ * @param start        the waypoint the segment starts at
+ * @param goal         the waypoint the segment ends at
+ * @param T            the time the segment takes
+ * @param coeffs       the x and then y quintic coefficients for T, highest power first. Shared, so they must not be modified
+ * @param results      the samples of the segment, with time starting at 0
+ * @param sampleStride the number of sampling steps between the samples, 1 at full resolution and more for a preview
+ */
+public record GeneratedSegment(Waypoint start, Waypoint goal, double T, double[] coeffs, PathResults results, int sampleStride) {
+    /**
+     * @return true if this segment was generated between waypoints with the same position, heading, velocity and acceleration
+     */
+    public boolean matches(Waypoint start, Waypoint goal) {
+        return sameKinematics(this.start, start) && sameKinematics(this.goal, goal);
+    }
+
+    private static boolean sameKinematics(Waypoint a, Waypoint b) {
+        return a.getX() == b.getX() && a.getY() == b.getY() && a.getRad() == b.getRad() && a.getV() == b.getV() && a.getA() == b.getA();
+    }
+}
@@ -11,6 +11,11 @@ public final class Path implements Serializable {
     private static final long serialVersionUID = 1L;
 
     public BetterArrayList<Waypoint> pathPoints, clickPoints, leftPoints, rightPoints;
+    // The segments and samples from the last generation of this path, so the next one only has to redo the segments that changed
+    public transient BetterArrayList<GeneratedSegment> segments;
+    public transient PathResults results;
+    // The shapes this path was last drawn with, see PathShapes
+    public transient PathShapes shapes;
 
     /**
      * Constructor for a Path
@@ -27,6 +32,8 @@ public final class Path implements Serializable {
         this.clickPoints = new BetterArrayList<>(other.clickPoints);
         this.leftPoints = new BetterArrayList<>(other.leftPoints);
         this.rightPoints = new BetterArrayList<>(other.rightPoints);
+        this.segments = other.segments;
+        this.results = other.results;
     }
 
     public boolean isNotEmpty() {
@@ -34,10 +41,13 @@ public final class Path implements Serializable {
     }
 
     public void clear() {
-        this.pathPoints.clear();
+        // The generated points are replaced instead of cleared, since a background generation may still be reading the old ones
+        this.pathPoints = new BetterArrayList<>();
         this.clickPoints.clear();
-        this.leftPoints.clear();
-        this.rightPoints.clear();
+        this.leftPoints = new BetterArrayList<>();
+        this.rightPoints = new BetterArrayList<>();
+        this.segments = null;
+        this.results = null;
     }
 
     @Override
@@ -0,0 +1,422 @@
+package util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Saves and loads paths in a versioned binary format, in place of Object streams of the Path objects. Every list of Waypoints is stored as
+ * contiguous columns of little endian doubles, x, y, rad, v and then a, so a file is about 40 bytes per point and is read back a column at
+ * a time instead of an object at a time. deg isn't stored since it follows from rad.
+ * <p>
+ * The file starts with an index of every path, so a Library can list a file of hundreds of paths without decoding any of them, and then
+ * only decode the ones that are asked for. Layout, with every section starting on an 8 byte boundary:
+ * <pre>
+ * header:   int MAGIC, int VERSION, int number of paths, int 0
+ * index:    per path, int length of the name in UTF-8 bytes, the name, 0 padding to the next multiple of 8
+ *                     long offset of its points from the start of the file
+ *                     int number of clickPoints, pathPoints, leftPoints and rightPoints
+ *                     double min x, min y, max x and max y over all of its points
+ * points:   per path, the 5 columns of each of its lists in the same order as their counts
+ * </pre>
+ * The first path is the current path, named "", and the rest are the saved paths in order. The generated lists are optional, a count of 0
+ * leaves them to be generated again from the click points. Version 1 files had no index, with each path's name and counts just before its
+ * points, and are still read by scanning through them.
+ */
+public final class PathFile {
+    public static final String EXTENSION = "paths";
+    public static final int MAGIC = 0x44324750; // "PG2D" in little endian
+    public static final int VERSION = 2;
+
+    private static final int HEADER_BYTES = 16;
+    private static final int LISTS = 4;
+    // The order the columns of each list are stored in
+    private static final List<ToDoubleFunction<Waypoint>> COLUMNS = List.of(Waypoint::getX, Waypoint::getY, Waypoint::getRad,
+            Waypoint::getV, Waypoint::getA);
+    private static final int POINT_BYTES = COLUMNS.size() * Double.BYTES;
+
+    /**
+     * What a file holds, in the same shape PathGUITool keeps its paths in
+     */
+    public record Contents(Path currentPath, LinkedHashMap<String, Path> paths) {
+    }
+
+    /**
+     * What the index says about a path, which is known without decoding any of its points
+     *
+     * @param waypoints the number of click points
+     * @param samples   the number of generated path points, 0 if they weren't saved
+     * @param minX      the bounds of every point in the path, NaN if it has none
+     */
+    public record Entry(String name, int waypoints, int samples, double minX, double minY, double maxX, double maxY) {
+    }
+
+    private PathFile() {
+    }
+
+    /**
+     * Writes to a temporary file next to file and then moves it over file, so a save that fails part way leaves the old file as it was, and
+     * a Library still mapping the old file keeps reading the old file instead of seeing it truncated under it.
+     *
+     * @param generated whether to store the pathPoints, leftPoints and rightPoints along with the click points
+     */
+    public static void write(File file, Path currentPath, Map<String, Path> paths, boolean generated) throws IOException {
+        List<Map.Entry<String, Path>> all = new ArrayList<>();
+        all.add(Map.entry("", currentPath));
+        all.addAll(paths.entrySet());
+
+        long size = HEADER_BYTES;
+        for (Map.Entry<String, Path> e : all) {
+            size += nameBytes(e.getKey()) + Long.BYTES + LISTS * Integer.BYTES + 4 * Double.BYTES;
+        }
+
+        long offset = size;
+        long[] offsets = new long[all.size()];
+        for (int i = 0; i < all.size(); i++) {
+            offsets[i] = offset;
+            for (List<Waypoint> list : lists(all.get(i).getValue(), generated)) {
+                offset += (long) list.size() * POINT_BYTES;
+            }
+        }
+
+        if (offset > Integer.MAX_VALUE) {
+            throw new IOException("Too many points to save in one file");
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate((int) offset).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(MAGIC).putInt(VERSION).putInt(all.size()).putInt(0);
+
+        for (int i = 0; i < all.size(); i++) {
+            byte[] name = all.get(i).getKey().getBytes(StandardCharsets.UTF_8);
+            buf.putInt(name.length).put(name);
+            buf.position(buf.position() + align(Integer.BYTES + name.length) - Integer.BYTES - name.length);
+            buf.putLong(offsets[i]);
+
+            double[] bounds = emptyBounds();
+            for (List<Waypoint> list : lists(all.get(i).getValue(), generated)) {
+                buf.putInt(list.size());
+                list.forEach(w -> addToBounds(bounds, w.getX(), w.getY()));
+            }
+
+            for (double b : finishBounds(bounds)) {
+                buf.putDouble(b);
+            }
+        }
+
+        for (Map.Entry<String, Path> e : all) {
+            for (List<Waypoint> list : lists(e.getValue(), generated)) {
+                for (ToDoubleFunction<Waypoint> column : COLUMNS) {
+                    for (Waypoint w : list) {
+                        buf.putDouble(column.applyAsDouble(w));
+                    }
+                }
+            }
+        }
+
+        buf.flip();
+        // Not Files.createTempFile, which would leave the saved file readable only by its owner
+        java.nio.file.Path target = file.toPath(), temp = target.resolveSibling(file.getName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buf.hasRemaining()) {
+                    channel.write(buf);
+                }
+                channel.force(true);
+            }
+
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Decodes every path in the file, see Library for decoding only some of them
+     */
+    public static Contents read(File file) throws IOException {
+        Library library = Library.read(file);
+        LinkedHashMap<String, Path> paths = new LinkedHashMap<>();
+
+        for (int i = 1; i < library.entries().size(); i++) {
+            paths.put(library.entries().get(i).name(), library.load(i));
+        }
+
+        return new Contents(library.load(0), paths);
+    }
+
+    /**
+     * A path file that has had only its index read, and each path's points are only decoded when load is called for it. load can be called
+     * from any thread. The file is either mapped or read into memory, see open and read.
+     */
+    public static final class Library {
+        private final ByteBuffer buf;
+        private final List<Entry> entries;
+        private final int[] offsets;
+        private final int[][] sizes;
+
+        private Library(ByteBuffer buf, List<Entry> entries, int[] offsets, int[][] sizes) {
+            this.buf = buf;
+            this.entries = entries;
+            this.offsets = offsets;
+            this.sizes = sizes;
+        }
+
+        /**
+         * Maps the file and reads its index. Every count, size and offset in it is checked against the length of the file, so a corrupt one
+         * is an IOException here rather than a load running off the end of it.
+         * <p>
+         * The mapping lasts until the Library is garbage collected, and some systems won't let a mapped file be replaced or deleted until
+         * then. Use read for a file that's about to be saved over or deleted.
+         */
+        public static Library open(File file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new IOException(file + " is too big to be a path file");
+                }
+
+                return index(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            }
+        }
+
+        /**
+         * The same as open, but reads the whole file into memory instead of mapping it, so nothing holds onto the file afterwards
+         */
+        public static Library read(File file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new IOException(file + " is too big to be a path file");
+                }
+
+                ByteBuffer buf = ByteBuffer.allocate((int) channel.size());
+                while (buf.hasRemaining()) {
+                    if (channel.read(buf) < 0) {
+                        break; // It got shorter since its size was read, which the index checks will catch
+                    }
+                }
+
+                return index(file, buf.flip());
+            }
+        }
+
+        /**
+         * Reads the index from the start of the file's contents
+         */
+        private static Library index(File file, ByteBuffer buf) throws IOException {
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+
+            try {
+                if (buf.getInt() != MAGIC) {
+                    throw new IOException(file + " isn't a path file");
+                }
+
+                int version = buf.getInt();
+                if (version > VERSION) {
+                    throw new IOException(file + " is version " + version + " of the path file format, this only reads up to " + VERSION);
+                }
+
+                int count = buf.getInt();
+                buf.getInt();
+                // Every entry takes up at least its name's length and its sizes, so a count that can't fit isn't something to make room for
+                if (count < 0 || count > buf.remaining() / (align(Integer.BYTES) + LISTS * Integer.BYTES)) {
+                    throw new IOException(file + " is corrupt, it can't hold " + count + " paths");
+                }
+
+                List<Entry> entries = new ArrayList<>(count);
+                int[] offsets = new int[count];
+                int[][] sizes = new int[count][LISTS];
+
+                for (int i = 0; i < count; i++) {
+                    int start = buf.position(), nameLength = buf.getInt();
+                    if (nameLength < 0 || nameLength > buf.remaining()) {
+                        throw new IOException(file + " is corrupt, path " + i + "'s name goes past the end of it");
+                    }
+
+                    byte[] name = new byte[nameLength];
+                    buf.get(name);
+                    buf.position(start + align(Integer.BYTES + name.length));
+
+                    long offset = version == 1 ? -1 : buf.getLong();
+                    long points = 0;
+                    for (int k = 0; k < LISTS; k++) {
+                        sizes[i][k] = buf.getInt();
+                        if (sizes[i][k] < 0) {
+                            throw new IOException(file + " is corrupt, path " + i + " has " + sizes[i][k] + " points in a list");
+                        }
+                        points += sizes[i][k];
+                    }
+
+                    double[] bounds = new double[4];
+                    if (version == 1) {
+                        // The points follow the counts, and the bounds get worked out from them once they're known to be in the file
+                        offset = buf.position();
+                    } else {
+                        buf.asDoubleBuffer().get(bounds);
+                        buf.position(buf.position() + bounds.length * Double.BYTES);
+                    }
+
+                    // Compared against what's left after offset, since a garbled offset near Long.MAX_VALUE would overflow the sum
+                    if (offset < 0 || offset > buf.limit() || points * POINT_BYTES > buf.limit() - offset) {
+                        throw new IOException(file + " is corrupt, path " + i + " goes past the end of it");
+                    }
+
+                    offsets[i] = (int) offset;
+                    if (version == 1) {
+                        scanBounds(buf, offsets[i], sizes[i], bounds);
+                        buf.position((int) (offset + points * POINT_BYTES));
+                    }
+
+                    entries.add(new Entry(new String(name, StandardCharsets.UTF_8), sizes[i][0], sizes[i][1], bounds[0], bounds[1],
+                            bounds[2], bounds[3]));
+                }
+
+                return new Library(buf, List.copyOf(entries), offsets, sizes);
+            } catch (RuntimeException e) {
+                // Anything else a truncated or garbled index can do is run off the end of the buffer
+                throw new IOException(file + " is corrupt", e);
+            }
+        }
+
+        /**
+         * @return what the index says about every path, with the current path first
+         */
+        public List<Entry> entries() {
+            return entries;
+        }
+
+        /**
+         * Decodes the points of a path. Every call decodes them again into a new Path, so the caller is free to modify it
+         *
+         * @param index the index of the path in entries()
+         */
+        public Path load(int index) {
+            Path path = new Path();
+            int at = offsets[index];
+
+            path.clickPoints = readList(buf, at, sizes[index][0]);
+            at += sizes[index][0] * POINT_BYTES;
+            path.pathPoints = readList(buf, at, sizes[index][1]);
+            at += sizes[index][1] * POINT_BYTES;
+            path.leftPoints = readList(buf, at, sizes[index][2]);
+            at += sizes[index][2] * POINT_BYTES;
+            path.rightPoints = readList(buf, at, sizes[index][3]);
+
+            return path;
+        }
+    }
+
+    /**
+     * @return whether the file starts with MAGIC, as opposed to being an old Object stream save or something else entirely
+     */
+    public static boolean isPathFile(File file) throws IOException {
+        try (FileInputStream in = new FileInputStream(file)) {
+            byte[] magic = in.readNBytes(Integer.BYTES);
+            return magic.length == Integer.BYTES && ByteBuffer.wrap(magic).order(ByteOrder.LITTLE_ENDIAN).getInt() == MAGIC;
+        }
+    }
+
+    /**
+     * Reads a file saved with Object streams, the way PathGUITool saved them before this format
+     */
+    @SuppressWarnings("unchecked")
+    public static Contents readSerialized(File file) throws IOException {
+        try (var ois = new ObjectInputStream(new FileInputStream(file))) {
+            Path currentPath = (Path) ois.readObject();
+            return new Contents(currentPath, (LinkedHashMap<String, Path>) ois.readObject());
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException(file + " isn't a saved path file", e);
+        }
+    }
+
+    /**
+     * Decodes the list of size points whose columns start at byte at of buf, without moving buf's position
+     */
+    private static BetterArrayList<Waypoint> readList(ByteBuffer buf, int at, int size) {
+        double[][] columns = new double[COLUMNS.size()][size];
+
+        for (int c = 0; c < columns.length; c++) {
+            buf.slice(at + c * size * Double.BYTES, size * Double.BYTES).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(columns[c]);
+        }
+
+        BetterArrayList<Waypoint> list = new BetterArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(new Waypoint(columns[0][i], columns[1][i], columns[2][i], columns[3][i], columns[4][i]));
+        }
+
+        return list;
+    }
+
+    /**
+     * Works out the bounds of the lists with the specified sizes whose columns start at byte at of buf, without moving buf's position
+     */
+    private static void scanBounds(ByteBuffer buf, int at, int[] sizes, double[] bounds) {
+        double[] b = emptyBounds();
+
+        for (int size : sizes) {
+            for (int i = 0; i < size; i++) {
+                addToBounds(b, buf.getDouble(at + i * Double.BYTES), buf.getDouble(at + (size + i) * Double.BYTES));
+            }
+            at += size * POINT_BYTES;
+        }
+
+        System.arraycopy(finishBounds(b), 0, bounds, 0, bounds.length);
+    }
+
+    private static double[] emptyBounds() {
+        return new double[]{Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+    }
+
+    private static void addToBounds(double[] bounds, double x, double y) {
+        bounds[0] = Math.min(bounds[0], x);
+        bounds[1] = Math.min(bounds[1], y);
+        bounds[2] = Math.max(bounds[2], x);
+        bounds[3] = Math.max(bounds[3], y);
+    }
+
+    /**
+     * @return the bounds, or NaNs if nothing was added to them
+     */
+    private static double[] finishBounds(double[] bounds) {
+        if (bounds[0] > bounds[2]) {
+            Arrays.fill(bounds, Double.NaN);
+        }
+
+        return bounds;
+    }
+
+    private static List<List<Waypoint>> lists(Path path, boolean generated) {
+        List<Waypoint> none = List.of();
+        return generated ? List.of(path.clickPoints, path.pathPoints, path.leftPoints, path.rightPoints) : List.of(path.clickPoints, none,
+                none, none);
+    }
+
+    /**
+     * @return the bytes the name and its length take up in the index, padded to a multiple of 8
+     */
+    private static int nameBytes(String name) {
+        return align(Integer.BYTES + name.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    private static int align(int bytes) {
+        return (bytes + 7) & ~7;
+    }
+}
@@ -0,0 +1,81 @@
+package util;
+
+/**
+ * Works out where points fixed to the robot, like its wheels or bumper corners, go as the robot follows a path, writing their x, y and
+ * velocity straight into primitive arrays instead of into a Waypoint per point. Each offset point is given in the robot's frame, forward
+ * along its heading and lateral to the left of it, and every offset is done in the same pass so the sin and cos of each sample's heading
+ * are only worked out once.
+ */
+public final class PathOffsets {
+    private PathOffsets() {
+    }
+
+    /**
+     * Offsets the samples in [from, to) by every offset point, so the sample at i ends up at x[k][i - from] for offset point k. The
+     * velocity is the offset point's speed along the robot's heading, v - omega * lateral, which is the wheel velocity for a wheel.
+     *
+     * @param results the samples to offset
+     * @param from    the index of the first sample to offset
+     * @param to      the index to stop offsetting before
+     * @param forward the distance of each offset point ahead of the center of the robot, or null if they are all on the center line
+     * @param lateral the distance of each offset point to the left of the center of the robot, negative for the right
+     * @param x       the arrays to write the x of each offset point into, at least to - from long
+     * @param y       the arrays to write the y of each offset point into, at least to - from long
+     * @param v       the arrays to write the velocity of each offset point into, at least to - from long, or null to skip them
+     */
+    public static void offset(PathResults results, int from, int to, double[] forward, double[] lateral, double[][] x, double[][] y,
+            double[][] v) {
+        offset(results, from, to, forward, lateral, x, y, v, 0);
+    }
+
+    /**
+     * The same as offset, but writing the sample at i to x[k][at + i - from]
+     */
+    public static void offset(PathResults results, int from, int to, double[] forward, double[] lateral, double[][] x, double[][] y,
+            double[][] v, int at) {
+        offset(results, from, to, forward, lateral, x, y, v, at, FastMath.ENABLED);
+    }
+
+    /**
+     * The same as offset, using FastMath's sinCos if fastMath is true. Everything else goes through the other overloads, which pass
+     * FastMath.ENABLED. This is only called directly to compare the two, and by the vectorized kernel with false for the samples it can't
+     * do a whole vector of, since it always uses Math.
+     */
+    public static void offset(PathResults results, int from, int to, double[] forward, double[] lateral, double[][] x, double[][] y,
+            double[][] v, int at, boolean fastMath) {
+        double[] sinCos = new double[2];
+
+        for (int i = from; i < to; i++) {
+            double rad = results.rad.get(i), cx = results.x.get(i), cy = results.y.get(i);
+            if (fastMath) {
+                FastMath.sinCos(rad, sinCos);
+            } else {
+                sinCos[0] = Math.sin(rad);
+                sinCos[1] = Math.cos(rad);
+            }
+
+            double sin = sinCos[0], cos = sinCos[1];
+
+            for (int k = 0; k < lateral.length; k++) {
+                double f = forward == null ? 0.0 : forward[k], l = lateral[k];
+                x[k][at + i - from] = cx + f * cos - l * sin;
+                y[k][at + i - from] = cy + f * sin + l * cos;
+
+                if (v != null) {
+                    v[k][at + i - from] = results.vel.get(i) - results.omega.get(i) * l;
+                }
+            }
+        }
+    }
+
+    /**
+     * Offsets the samples in [from, to) to the left and right wheels of a robot with the specified track width
+     *
+     * @param x the arrays to write the left and then right x into
+     * @param y the arrays to write the left and then right y into
+     * @param v the arrays to write the left and then right velocity into, or null to skip them
+     */
+    public static void leftRight(PathResults results, int from, int to, double robotTrkWidth, double[][] x, double[][] y, double[][] v) {
+        offset(results, from, to, null, new double[]{robotTrkWidth / 2.0, -robotTrkWidth / 2.0}, x, y, v);
+    }
+}
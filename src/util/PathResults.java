@@ -0,0 +1,114 @@
+package util;
+
+/**
+ * The samples of a generated path, stored as one primitive column per value so that generating a path doesn't allocate an object per value.
+ * Every column holds the same number of samples. The time and distance of a segment start at 0, and are carried on from the end of the
+ * path when it gets spliced on.
+ */
+public final class PathResults {
+    public final DoubleList rad; // angle in radians
+    public final DoubleList deg; // angle in degrees
+    public final DoubleList time, x, y, vel, acc, jerk, roc, distance, omega;
+    // Every column, so they can all be copied and cleared together
+    private final DoubleList[] columns;
+
+    public PathResults() {
+        this(10);
+    }
+
+    /**
+     * @param capacity the number of samples to make room for up front
+     */
+    public PathResults(int capacity) {
+        this.time = new DoubleList(capacity);
+        this.x = new DoubleList(capacity);
+        this.y = new DoubleList(capacity);
+        this.rad = new DoubleList(capacity);
+        this.deg = new DoubleList(capacity);
+        this.vel = new DoubleList(capacity);
+        this.acc = new DoubleList(capacity);
+        this.jerk = new DoubleList(capacity);
+        this.roc = new DoubleList(capacity);
+        this.distance = new DoubleList(capacity);
+        this.omega = new DoubleList(capacity);
+
+        this.columns = new DoubleList[]{this.time, this.x, this.y, this.rad, this.deg, this.vel, this.acc, this.jerk, this.roc,
+                this.distance, this.omega};
+    }
+
+    public DoubleList getVel() {
+        return vel;
+    }
+
+    public DoubleList getRoc() {
+        return roc;
+    }
+
+    public DoubleList getDistance() {
+        return this.distance;
+    }
+
+    public DoubleList getDeg() {
+        return this.deg;
+    }
+
+    public DoubleList getRad() {
+        return this.rad;
+    }
+
+    /**
+     * Appends the samples of a segment onto the end of these results, shifting its time and distance so that they carry on from the last
+     * sample here.
+     *
+     * @param segment the segment to splice on
+     * @param from    the first sample of the segment to take, 1 skips the sample that duplicates the end of the previous segment
+     */
+    public void splice(PathResults segment, int from) {
+        double timeOffset = time.isEmpty() ? 0.0 : time.getLast();
+        double distanceOffset = distance.isEmpty() ? 0.0 : distance.getLast();
+
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] == time) {
+                time.addAll(segment.time, from, timeOffset);
+            } else if (columns[i] == distance) {
+                distance.addAll(segment.distance, from, distanceOffset);
+            } else {
+                columns[i].addAll(segment.columns[i], from);
+            }
+        }
+    }
+
+    /**
+     * Appends the first count samples of every column of other onto the end of these results.
+     *
+     * @param other the results to copy from
+     * @param count the number of samples to copy
+     */
+    public void copyPrefix(PathResults other, int count) {
+        for (int i = 0; i < columns.length; i++) {
+            columns[i].addRange(other.columns[i], 0, count);
+        }
+    }
+
+    /**
+     * Makes sure every column can hold the specified number of samples without growing
+     */
+    public void ensureCapacity(int capacity) {
+        for (DoubleList column : columns) {
+            column.ensureCapacity(capacity);
+        }
+    }
+
+    public void clear() {
+        for (DoubleList column : columns) {
+            column.clear();
+        }
+    }
+
+    /**
+     * @return the number of samples
+     */
+    public int size() {
+        return time.size();
+    }
+}
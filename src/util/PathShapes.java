@@ -0,0 +1,208 @@
+package util;
+
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.util.List;
+
+/**
+ * The shapes a Path is drawn with, already in screen coordinates, kept between repaints so that a path that hasn't changed isn't
+ * transformed and built up again every frame. Each shape is a line through a set of points, and is only rebuilt once its points or the
+ * view's offsets and scales change. The generated points are replaced instead of changed in place, so they are compared by reference, while
+ * the click points are moved in place and are compared by value.
+ * <p>
+ * The generated points come 100 to a second, so at the field's scale most of them are well under a pixel from the line through their
+ * neighbours. Their lines are simplified with Douglas-Peucker down to the points that are needed to stay within LOD_TOLERANCE of every
+ * sample, which is usually a small fraction of them. Since the shapes are only rebuilt when the view changes, each scale is only
+ * simplified for once.
+ * <p>
+ * clickDots is made of zero length lines, which come out as circles as wide as the stroke they're drawn with when it has round caps. That
+ * takes a fraction of the memory of an Ellipse2D per point, and with pure stroke control they're the same pixels as the filled circles.
+ */
+public final class PathShapes {
+    private static final float LOD_TOLERANCE = 0.1f; // Pixels, how far a simplified line can stray from the samples it skips
+
+    public final Path2D.Float clickLine = new Path2D.Float(), clickDots = new Path2D.Float();
+    public final Path2D.Float center = new Path2D.Float(), left = new Path2D.Float(), right = new Path2D.Float();
+
+    // What the layers were last built from
+    private double xOff = Double.NaN, xScale, yOff, yScale;
+    private List<Waypoint> centerSource, leftSource, rightSource;
+    private double[] clickSource = new double[0];
+    private Rectangle2D bounds;
+
+    private PathShapes() {
+    }
+
+    /**
+     * @return the smallest rectangle around the points of every shape, not counting the width they're drawn with, or null if there aren't
+     * any points
+     */
+    public Rectangle2D bounds() {
+        return bounds;
+    }
+
+    /**
+     * @return the shapes of the path for the given view, rebuilding whichever layers are out of date
+     */
+    public static PathShapes of(Path path, double xOff, double xScale, double yOff, double yScale) {
+        if (path.shapes == null) {
+            path.shapes = new PathShapes();
+        }
+
+        path.shapes.update(path, xOff, xScale, yOff, yScale);
+        return path.shapes;
+    }
+
+    private void update(Path path, double xOff, double xScale, double yOff, double yScale) {
+        boolean moved = xOff != this.xOff || xScale != this.xScale || yOff != this.yOff || yScale != this.yScale;
+        this.xOff = xOff;
+        this.xScale = xScale;
+        this.yOff = yOff;
+        this.yScale = yScale;
+
+        boolean changed = moved;
+
+        if (moved || clicksChanged(path.clickPoints)) {
+            clickSource = new double[2 * path.clickPoints.size()];
+            for (int i = 0; i < path.clickPoints.size(); i++) {
+                clickSource[2 * i] = path.clickPoints.get(i).getX();
+                clickSource[2 * i + 1] = path.clickPoints.get(i).getY();
+            }
+
+            build(clickLine, clickDots, path.clickPoints);
+            changed = true;
+        }
+
+        if (moved || centerSource != path.pathPoints) {
+            centerSource = path.pathPoints;
+            build(center, null, path.pathPoints);
+            changed = true;
+        }
+
+        if (moved || leftSource != path.leftPoints) {
+            leftSource = path.leftPoints;
+            build(left, null, path.leftPoints);
+            changed = true;
+        }
+
+        if (moved || rightSource != path.rightPoints) {
+            rightSource = path.rightPoints;
+            build(right, null, path.rightPoints);
+            changed = true;
+        }
+
+        if (changed) {
+            bounds = null;
+            for (Path2D.Float shape : new Path2D.Float[]{clickLine, center, left, right}) {
+                if (shape.getCurrentPoint() != null) {
+                    bounds = bounds == null ? shape.getBounds2D() : bounds.createUnion(shape.getBounds2D());
+                }
+            }
+        }
+    }
+
+    /**
+     * Replaces line with a line through the points, and dots with a dot on each of them if it isn't null
+     */
+    private void build(Path2D.Float line, Path2D.Float dots, List<Waypoint> points) {
+        line.reset();
+        if (dots != null) {
+            dots.reset();
+        }
+
+        int n = points.size();
+        float[] x = new float[n], y = new float[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = (float) (xOff + xScale * points.get(i).getX());
+            y[i] = (float) (yOff - yScale * points.get(i).getY());
+        }
+
+        // Every click point gets a dot, so only the generated lines are simplified
+        boolean[] keep = dots == null ? simplify(x, y) : null;
+
+        for (int i = 0; i < n; i++) {
+            if (keep != null && !keep[i]) {
+                continue;
+            }
+
+            if (i == 0) {
+                line.moveTo(x[i], y[i]);
+            } else {
+                line.lineTo(x[i], y[i]);
+            }
+
+            if (dots != null) {
+                dots.moveTo(x[i], y[i]);
+                dots.lineTo(x[i], y[i]);
+            }
+        }
+    }
+
+    /**
+     * Douglas-Peucker: keeps the ends of each run of points, and splits the run at the point furthest from the segment between them if that
+     * point is more than LOD_TOLERANCE away. The distance is to the segment rather than to the whole line through it, so that a path that
+     * doubles back on itself keeps its ends. The runs are kept on a stack instead of recursing, since a path can have thousands of points.
+     *
+     * @return which points to keep
+     */
+    static boolean[] simplify(float[] x, float[] y) {
+        int n = x.length;
+        boolean[] keep = new boolean[n];
+        if (n == 0) {
+            return keep;
+        }
+
+        keep[0] = true;
+        keep[n - 1] = true;
+
+        int[] stack = new int[2 * n + 2];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = n - 1;
+
+        while (top > 0) {
+            int last = stack[--top], first = stack[--top];
+            float dx = x[last] - x[first], dy = y[last] - y[first];
+            float length2 = dx * dx + dy * dy;
+
+            // Distances are compared squared so there's no square root per point
+            int furthest = -1;
+            float furthestDistance = LOD_TOLERANCE * LOD_TOLERANCE;
+            for (int i = first + 1; i < last; i++) {
+                float ex = x[i] - x[first], ey = y[i] - y[first];
+                // Where the point projects onto the segment, as a fraction of the way along it. The ends can be on top of each other
+                float t = length2 == 0.0f ? 0.0f : Math.max(0.0f, Math.min(1.0f, (ex * dx + ey * dy) / length2));
+                float px = ex - t * dx, py = ey - t * dy, distance = px * px + py * py;
+
+                if (distance > furthestDistance) {
+                    furthest = i;
+                    furthestDistance = distance;
+                }
+            }
+
+            if (furthest != -1) {
+                keep[furthest] = true;
+                stack[top++] = first;
+                stack[top++] = furthest;
+                stack[top++] = furthest;
+                stack[top++] = last;
+            }
+        }
+
+        return keep;
+    }
+
+    private boolean clicksChanged(List<Waypoint> clickPoints) {
+        if (clickSource.length != 2 * clickPoints.size()) {
+            return true;
+        }
+
+        for (int i = 0; i < clickPoints.size(); i++) {
+            if (clickSource[2 * i] != clickPoints.get(i).getX() || clickSource[2 * i + 1] != clickPoints.get(i).getY()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
@@ -45,6 +45,18 @@ public final class Waypoint implements Serializable {
         }
     }
 
+    /**
+     * Restores a waypoint exactly as it was, without deg being worked out again from rad or the check on rad, for EditJournal
+     */
+    Waypoint(double x, double y, double rad, double deg, double v, double a) {
+        this.x = x;
+        this.y = y;
+        this.rad = rad;
+        this.deg = deg;
+        this.v = v;
+        this.a = a;
+    }
+
     @Override
     public boolean equals(Object p) {
         if (p instanceof Waypoint temp) {
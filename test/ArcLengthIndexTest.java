@@ -0,0 +1,64 @@
+import org.junit.Test;
+import util.Waypoint;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the arc length against the distance PathGen2D adds up from its samples, and lookups by distance against lookups by time.
+ */
+public class ArcLengthIndexTest {
+    private static final Waypoint[] WAYPOINTS = {new Waypoint(1.0, 24.0, 0.0, 0.0, 8.0), new Waypoint(2.0, 24.0, 0.0, 4.4, 8.0),
+            new Waypoint(7.0, 19.0, Math.toRadians(-90.0), 4.4, -8.0), new Waypoint(7.0, 18.0, Math.toRadians(-90.0), 0.0, -8.0)};
+
+    private final PathGen2D gen = new PathGen2D(WAYPOINTS);
+    private final ArcLengthIndex index = new ArcLengthIndex(gen.getTrajectory());
+
+    @Test
+    public void lengthMatchesSampledDistance() {
+        // The samples cut every corner by a little, so they come up just short of the arc length
+        double sampled = gen.results.distance.getLast();
+        assertTrue(index.getLength() >= sampled);
+        assertEquals(sampled, index.getLength(), 1e-3);
+    }
+
+    @Test
+    public void timeAtInvertsArcLengthTo() {
+        for (int i = 0; i < gen.results.size(); i++) {
+            double t = gen.results.time.get(i);
+            // Compared as a distance, since near a stop a tiny distance can take a long time
+            assertEquals("at t = " + t, 0.0, Math.abs(index.timeAt(index.arcLengthTo(t)) - t) * gen.results.vel.get(i), 1e-8);
+        }
+    }
+
+    @Test
+    public void cursorMatchesTimeAt() {
+        ArcLengthIndex.Cursor cursor = index.cursor();
+
+        // Forwards, which walks panel by panel, and then backwards, which binary searches
+        for (int k = 0; k <= 1000; k++) {
+            double s = index.getLength() * k / 1000.0;
+            assertEquals("at s = " + s, index.timeAt(s), cursor.timeAt(s), 1e-12);
+        }
+        for (int k = 1000; k >= 0; k -= 7) {
+            double s = index.getLength() * k / 1000.0;
+            assertEquals("at s = " + s, index.timeAt(s), cursor.timeAt(s), 1e-12);
+        }
+    }
+
+    @Test
+    public void resampleSpacesSamplesByDistance() {
+        var samples = index.resample(0.1);
+
+        assertEquals(0.0, samples.distance.get(0), 0.0);
+        assertEquals(index.getLength(), samples.distance.getLast(), 0.0);
+        for (int i = 1; i < samples.size() - 1; i++) {
+            assertEquals("at sample " + i, 0.1, samples.distance.get(i) - samples.distance.get(i - 1), 1e-12);
+
+            // A straight line is the shortest way between 2 samples, so it can't be longer than the arc between them. The quadrature is
+            // least accurate where the first segment nearly stops and turns back, which is where the slack goes
+            double chord = Math.hypot(samples.x.get(i) - samples.x.get(i - 1), samples.y.get(i) - samples.y.get(i - 1));
+            assertTrue("at sample " + i, chord <= 0.1 + 1e-4);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+import org.junit.Test;
+import util.FastMath;
+import util.GeneratedSegment;
+import util.Path;
+import util.PathFile;
+import util.PathOffsets;
+import util.PathResults;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Generates the paths saved in December272021-195613.txt with the scalar kernels with and without fast math, and checks that they come out
+ * within FastMath.PATH_MAX_ERROR of each other. Both are called directly, so this holds whichever kernels and mode the tests run with.
+ */
+public class FastMathPathsTest {
+    private static final double STEPS_PER_SECOND = 100.0; // PathGen2D's
+    private static final double ROBOT_TRK_WIDTH = 1.744792; // ft
+
+    @Test
+    public void samplePathsAreWithinTheBound() throws Exception {
+        File file = new File(FastMathPathsTest.class.getResource("/December272021-195613.txt").toURI());
+        PathFile.Contents contents = PathFile.readSerialized(file);
+        List<Path> paths = new ArrayList<>(contents.paths().values());
+        paths.add(0, contents.currentPath());
+
+        double[] lateral = {ROBOT_TRK_WIDTH / 2.0, -ROBOT_TRK_WIDTH / 2.0};
+        int segments = 0;
+
+        for (Path path : paths) {
+            if (path.clickPoints.size() < 2) {
+                continue;
+            }
+
+            PathGen2D gen = new PathGen2D(Utils.convertPointArray(path.clickPoints), PathGen2D.TSearch.BISECTION, 0.01, null);
+            for (GeneratedSegment segment : gen.segments) {
+                QuinticPolynomial xqp = new QuinticPolynomial(segment.coeffs(), 0);
+                QuinticPolynomial yqp = new QuinticPolynomial(segment.coeffs(), QuinticSolver.COEFFS);
+                int count = segment.results().size();
+                double stepsPerSecond = STEPS_PER_SECOND / segment.sampleStride();
+
+                PathResults exact = new PathResults(count), fast = new PathResults(count);
+                QuinticPolynomial.sample(xqp, yqp, stepsPerSecond, 0, count, exact, false);
+                QuinticPolynomial.sample(xqp, yqp, stepsPerSecond, 0, count, fast, true);
+
+                double[][] exactX = new double[2][count], exactY = new double[2][count], fastX = new double[2][count],
+                        fastY = new double[2][count];
+                PathOffsets.offset(exact, 0, count, null, lateral, exactX, exactY, null, 0, false);
+                PathOffsets.offset(fast, 0, count, null, lateral, fastX, fastY, null, 0, true);
+
+                for (int i = 0; i < count; i++) {
+                    String at = "sample " + i + " of segment " + segments;
+                    assertEquals(at, exact.x.get(i), fast.x.get(i), FastMath.PATH_MAX_ERROR);
+                    assertEquals(at, exact.y.get(i), fast.y.get(i), FastMath.PATH_MAX_ERROR);
+                    assertEquals(at, exact.rad.get(i), fast.rad.get(i), FastMath.PATH_MAX_ERROR);
+                    assertEquals(at, exact.distance.get(i), fast.distance.get(i), FastMath.PATH_MAX_ERROR);
+
+                    for (int k = 0; k < 2; k++) {
+                        assertEquals(at, exactX[k][i], fastX[k][i], FastMath.PATH_MAX_ERROR);
+                        assertEquals(at, exactY[k][i], fastY[k][i], FastMath.PATH_MAX_ERROR);
+                    }
+                }
+
+                segments++;
+            }
+        }
+
+        assertTrue(segments > 0);
+    }
+}
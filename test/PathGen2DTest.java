@@ -0,0 +1,181 @@
+import org.junit.Test;
+import util.BetterArrayList;
+import util.Path;
+import util.PathResults;
+import util.Waypoint;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that regenerating a path from its last generation, the way BackgroundGenerator does after every edit, ends up with bit for bit the
+ * same samples and points as generating it from scratch, and that solving the segments on a pool does too.
+ */
+public class PathGen2DTest {
+    private static final double ROBOT_TRK_WIDTH = 1.744792; // ft
+
+    @Test
+    public void incrementalMatchesFullGeneration() {
+        Random random = new Random(5);
+        Path path = new Path();
+        int keptPrefixes = 0, keptTails = 0;
+
+        for (int step = 0; step < 150; step++) {
+            int op = random.nextInt(4);
+            if (op == 0 || path.clickPoints.size() < 2) {
+                path.clickPoints.add(new Waypoint(random.nextDouble() * 50.0, random.nextDouble() * 25.0, random.nextDouble() * 6.0 - 3.0,
+                        random.nextDouble() * 8.0, random.nextDouble() * 12.0 - 6.0));
+            } else if (op == 1) {
+                path.clickPoints.removeLast();
+            } else if (op == 2) {
+                path.clickPoints.get(random.nextInt(path.clickPoints.size())).incrementPosition(random.nextDouble() - 0.5, 0.1);
+            } else {
+                path.clickPoints.get(random.nextInt(path.clickPoints.size())).setDegVelAcc(random.nextDouble() * 90.0,
+                        random.nextDouble() * 5.0, 1.0);
+            }
+
+            PathGen2D incremental = regenerate(path);
+            keptPrefixes += incremental.firstChangedSample > 0 ? 1 : 0;
+            keptTails += incremental.unchangedTailSamples > 0 ? 1 : 0;
+
+            PathGen2D full = new PathGen2D(Utils.convertPointArray(path.clickPoints), PathGen2D.TSearch.BISECTION, 0.01, null);
+            String at = "step " + step;
+            assertResultsEqual(at, full.results, path.results);
+
+            var sides = full.leftRight(ROBOT_TRK_WIDTH);
+            assertPointsEqual(at, Utils.convertResults(full.results), path.pathPoints);
+            assertPointsEqual(at, sides.get(0), path.leftPoints);
+            assertPointsEqual(at, sides.get(1), path.rightPoints);
+        }
+
+        assertTrue("No edit kept the start of the path", keptPrefixes > 0);
+        assertTrue("No edit kept the end of the path", keptTails > 0);
+    }
+
+    @Test
+    public void movingAnInnerWaypointKeepsTheRestOfThePath() {
+        Path path = new Path();
+        for (int i = 0; i < 8; i++) {
+            path.clickPoints.add(new Waypoint(2.0 + 5.0 * i, 10.0 + (i % 2), 0.0, i == 0 || i == 7 ? 0.0 : 4.0, 0.0));
+        }
+        regenerate(path);
+        BetterArrayList<Waypoint> before = path.pathPoints;
+        PathResults beforeResults = path.results;
+
+        path.clickPoints.get(3).incrementPosition(0.0, 0.5);
+        PathGen2D gen = regenerate(path);
+
+        // Only segments 2 and 3 were solved again, everything after them is the same points in the same places
+        int kept = gen.unchangedTailSamples;
+        assertTrue(kept > 0);
+        for (int i = 1; i <= kept; i++) {
+            assertSame(before.get(before.size() - i), path.pathPoints.get(path.pathPoints.size() - i));
+
+            // Only time and distance moved, by the same amount all the way along
+            int now = gen.results.size() - i, then = beforeResults.size() - i;
+            double shift = gen.results.time.getLast() - beforeResults.time.getLast();
+            assertEquals(shift, gen.results.time.get(now) - beforeResults.time.get(then), 0.0);
+            assertEquals(gen.results.x.get(now), beforeResults.x.get(then), 0.0);
+        }
+    }
+
+    @Test
+    public void poolMatchesSerialGeneration() {
+        Random random = new Random(5);
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        try {
+            for (int run = 0; run < 40; run++) {
+                Waypoint[] waypoints = new Waypoint[PathGen2D.MIN_PARALLEL_SEGMENTS + 1 + random.nextInt(20)];
+                for (int i = 0; i < waypoints.length; i++) {
+                    waypoints[i] = new Waypoint(random.nextDouble() * 50.0, random.nextDouble() * 25.0, random.nextDouble() * 6.0 - 3.0,
+                            random.nextDouble() * 8.0, random.nextDouble() * 12.0 - 6.0);
+                }
+                PathGen2D.TSearch search = run % 2 == 0 ? PathGen2D.TSearch.BISECTION : PathGen2D.TSearch.LINEAR;
+
+                // Both solve every segment from scratch, so that neither can pick up what the other put in the cache
+                PathGen2D.CACHE.clear();
+                PathGen2D serial = new PathGen2D(waypoints, search, 0.01, null, null);
+                PathGen2D.CACHE.clear();
+                PathGen2D parallel = new PathGen2D(waypoints, search, 0.01, null, pool);
+
+                String at = "run " + run;
+                assertArrayEquals(at, serial.segmentT, parallel.segmentT, 0.0);
+                assertResultsEqual(at, serial.results, parallel.results);
+
+                var serialSides = serial.leftRight(ROBOT_TRK_WIDTH);
+                var parallelSides = parallel.leftRight(ROBOT_TRK_WIDTH);
+                assertPointsEqual(at, serialSides.get(0), parallelSides.get(0));
+                assertPointsEqual(at, serialSides.get(1), parallelSides.get(1));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void bisectionMatchesLinearOnTheExamples() {
+        Waypoint[][] examples = PathGen2D.examples();
+
+        for (int e = 0; e < examples.length; e++) {
+            PathGen2D linear = new PathGen2D(examples[e]);
+            PathGen2D bisection = new PathGen2D(examples[e], PathGen2D.TSearch.BISECTION, 0.01, null);
+
+            String at = "example " + (e + 1);
+            assertArrayEquals(at, linear.segmentT, bisection.segmentT, 0.0);
+            assertResultsEqual(at, linear.results, bisection.results);
+        }
+    }
+
+    /**
+     * Regenerates the path from its last generation and patches its points, the same as BackgroundGenerator.publish
+     */
+    private static PathGen2D regenerate(Path path) {
+        PathGen2D gen = new PathGen2D(path, PathGen2D.TSearch.BISECTION, 0.01, null);
+        int from = gen.firstChangedSample, kept = gen.unchangedTailSamples, to = gen.results.size() - kept;
+        var sides = gen.leftRight(ROBOT_TRK_WIDTH, from, to);
+
+        path.pathPoints = Utils.patch(path.pathPoints, from, Utils.convertResults(gen.results, from, to), kept);
+        path.leftPoints = Utils.patch(path.leftPoints, from, sides.get(0), kept);
+        path.rightPoints = Utils.patch(path.rightPoints, from, sides.get(1), kept);
+        path.segments = gen.segments;
+        path.results = gen.results;
+
+        return gen;
+    }
+
+    private static void assertResultsEqual(String at, PathResults expected, PathResults actual) {
+        assertEquals(at, expected.size(), actual.size());
+
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(at, expected.time.get(i), actual.time.get(i), 0.0);
+            assertEquals(at, expected.x.get(i), actual.x.get(i), 0.0);
+            assertEquals(at, expected.y.get(i), actual.y.get(i), 0.0);
+            assertEquals(at, expected.rad.get(i), actual.rad.get(i), 0.0);
+            assertEquals(at, expected.deg.get(i), actual.deg.get(i), 0.0);
+            assertEquals(at, expected.vel.get(i), actual.vel.get(i), 0.0);
+            assertEquals(at, expected.acc.get(i), actual.acc.get(i), 0.0);
+            assertEquals(at, expected.jerk.get(i), actual.jerk.get(i), 0.0);
+            assertEquals(at, expected.roc.get(i), actual.roc.get(i), 0.0);
+            assertEquals(at, expected.omega.get(i), actual.omega.get(i), 0.0);
+            assertEquals(at, expected.distance.get(i), actual.distance.get(i), 0.0);
+        }
+    }
+
+    private static void assertPointsEqual(String at, List<Waypoint> expected, List<Waypoint> actual) {
+        assertEquals(at, expected.size(), actual.size());
+
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(at, expected.get(i).getX(), actual.get(i).getX(), 0.0);
+            assertEquals(at, expected.get(i).getY(), actual.get(i).getY(), 0.0);
+            assertEquals(at, expected.get(i).getRad(), actual.get(i).getRad(), 0.0);
+            assertEquals(at, expected.get(i).getV(), actual.get(i).getV(), 0.0);
+        }
+    }
+}
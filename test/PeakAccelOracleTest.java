@@ -0,0 +1,65 @@
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the analytic peak against the aligned acceleration sampled densely over the segment, on random boundary conditions. The peak must
+ * never be under the sampled max, since a T it accepts has to be feasible everywhere, and can only be over it by what falls between two
+ * samples.
+ */
+public class PeakAccelOracleTest {
+    private static final int SAMPLES = 20000;
+    private static final double STOPPED_EPS = 1e-9; // ft/s, PeakAccelOracle's
+    // Relative to the peak (or 1 ft/s^2, whichever is bigger), since short segments can accelerate at thousands of ft/s^2
+    private static final double TOL = 1e-6, ROUND_OFF = 1e-12;
+
+    @Test
+    public void peakBoundsTheSampledMaxClosely() {
+        Random random = new Random(3);
+        PeakAccelOracle oracle = new PeakAccelOracle();
+        double[] coeffs = new double[2 * QuinticSolver.COEFFS];
+
+        for (int run = 0; run < 2000; run++) {
+            double T = 0.2 + random.nextDouble() * 6.0;
+            // Every few runs start or end stopped, where the whole acceleration counts
+            double s_v = run % 4 == 0 ? 0.0 : random.nextDouble() * 12.0, g_v = run % 5 == 0 ? 0.0 : random.nextDouble() * 12.0;
+            double s_a = random.nextDouble() * 24.0 - 12.0, g_a = random.nextDouble() * 24.0 - 12.0;
+            double s_yaw = random.nextDouble() * 2.0 * Math.PI - Math.PI, g_yaw = random.nextDouble() * 2.0 * Math.PI - Math.PI;
+            double[] bc = {random.nextDouble() * 50.0, s_v * Math.cos(s_yaw), s_a * Math.cos(s_yaw), random.nextDouble() * 50.0,
+                    g_v * Math.cos(g_yaw), g_a * Math.cos(g_yaw), random.nextDouble() * 25.0, s_v * Math.sin(s_yaw), s_a * Math.sin(s_yaw),
+                    random.nextDouble() * 25.0, g_v * Math.sin(g_yaw), g_a * Math.sin(g_yaw)};
+            QuinticSolver.solve2D(bc, T, coeffs);
+
+            double peak = oracle.peakAlignedAccel(coeffs, T), sampled = 0.0;
+            for (int k = 0; k <= SAMPLES; k++) {
+                sampled = Math.max(sampled, alignedAccel(coeffs, k == SAMPLES ? T : k * T / SAMPLES));
+            }
+
+            String at = "run " + run + ": peak " + peak + ", sampled " + sampled;
+            double scale = Math.max(1.0, sampled);
+            assertTrue(at, peak >= sampled - ROUND_OFF * scale);
+            assertTrue(at, peak <= sampled + TOL * scale);
+        }
+    }
+
+    /**
+     * The absolute aligned acceleration at t worked out directly from the x and y quintics, counting all of it where they're stopped
+     */
+    private static double alignedAccel(double[] coeffs, double t) {
+        double vx = velocity(coeffs, 0, t), vy = velocity(coeffs, QuinticSolver.COEFFS, t);
+        double ax = acceleration(coeffs, 0, t), ay = acceleration(coeffs, QuinticSolver.COEFFS, t);
+        double v = Math.hypot(vx, vy);
+
+        return v < STOPPED_EPS ? Math.hypot(ax, ay) : Math.abs(vx * ax + vy * ay) / v;
+    }
+
+    private static double velocity(double[] c, int o, double t) {
+        return (((5.0 * c[o] * t + 4.0 * c[o + 1]) * t + 3.0 * c[o + 2]) * t + 2.0 * c[o + 3]) * t + c[o + 4];
+    }
+
+    private static double acceleration(double[] c, int o, double t) {
+        return ((20.0 * c[o] * t + 12.0 * c[o + 1]) * t + 6.0 * c[o + 2]) * t + 2.0 * c[o + 3];
+    }
+}
@@ -0,0 +1,62 @@
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.ArrayRealVector;
+import org.apache.commons.math3.linear.LUDecomposition;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the closed form against the LU decomposition it replaced, which is only kept around as a reference for this.
+ */
+public class QuinticSolverTest {
+    private static final double MAX_REL_ERR = 1e-9;
+
+    @Test
+    public void matchesLUDecomposition() {
+        double[] out = new double[QuinticSolver.COEFFS];
+
+        for (double T = 0.1; T <= 10.0; T += 0.37) {
+            for (double xe = -30.0; xe <= 30.0; xe += 7.5) {
+                double xs = 1.5, vxs = 5.7, axs = -12.0, vxe = -3.0, axe = 8.0;
+                QuinticSolver.solve(xs, vxs, axs, xe, vxe, axe, T, out, 0);
+
+                double T2 = T * T, T3 = T2 * T, T4 = T3 * T, T5 = T4 * T, d = axs / 2.0;
+                // @formatter:off
+                RealMatrix A = new Array2DRowRealMatrix(new double[][]{
+                        {T3, T4, T5},
+                        {3.0 * T2, 4.0 * T3, 5.0 * T4},
+                        {6.0 * T, 12.0 * T2, 20.0 * T3}
+                });
+                RealVector B = new ArrayRealVector(new double[]{
+                        xe - xs - vxs * T - d * T2, vxe - vxs - 2.0 * d * T, axe - 2.0 * d
+                });
+                // @formatter:on
+                RealVector x = new LUDecomposition(A).getSolver().solve(B);
+
+                for (int i = 0; i < 3; i++) {
+                    double ref = x.getEntry(2 - i);
+                    assertEquals("T = " + T + ", xe = " + xe, ref, out[i], MAX_REL_ERR * Math.max(1.0, Math.abs(ref)));
+                }
+                assertArrayEquals(new double[]{d, vxs, xs}, new double[]{out[3], out[4], out[5]}, 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void solve2DFitsBothAxes() {
+        double[] bc = {1.0, 2.0, 3.0, 10.0, -1.0, 0.5, -4.0, 0.0, 1.0, 7.0, 3.0, -2.0};
+        double[] out = new double[2 * QuinticSolver.COEFFS], x = new double[QuinticSolver.COEFFS], y = new double[QuinticSolver.COEFFS];
+
+        QuinticSolver.solve2D(bc, 2.5, out);
+        QuinticSolver.solve(bc[0], bc[1], bc[2], bc[3], bc[4], bc[5], 2.5, x, 0);
+        QuinticSolver.solve(bc[6], bc[7], bc[8], bc[9], bc[10], bc[11], 2.5, y, 0);
+
+        assertArrayEquals(x, Arrays.copyOfRange(out, 0, QuinticSolver.COEFFS), 0.0);
+        assertArrayEquals(y, Arrays.copyOfRange(out, QuinticSolver.COEFFS, 2 * QuinticSolver.COEFFS), 0.0);
+    }
+}
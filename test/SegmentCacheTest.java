@@ -0,0 +1,111 @@
+import org.junit.After;
+import org.junit.Test;
+import util.Waypoint;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks SegmentCache's counters and least recently used eviction, and that PathGen2D only reuses the T of an entry solved for exactly the
+ * same boundary conditions.
+ */
+public class SegmentCacheTest {
+    private static final double[] BC = new double[12], COEFFS = new double[2 * QuinticSolver.COEFFS];
+
+    @After
+    public void clearSharedCache() {
+        PathGen2D.CACHE.clear();
+    }
+
+    @Test
+    public void countsHitsMissesAndRejects() {
+        SegmentCache cache = new SegmentCache(4);
+
+        assertNull(cache.get(key(1)));
+        cache.put(key(1), BC, 1.0, COEFFS, true);
+        assertNotNull(cache.get(key(1)));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        cache.reject();
+        assertEquals(0, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(0, cache.getEvictions());
+    }
+
+    @Test
+    public void evictsTheLeastRecentlyUsedEntryAtCapacity() {
+        SegmentCache cache = new SegmentCache(3);
+        cache.put(key(1), BC, 1.0, COEFFS, true);
+        cache.put(key(2), BC, 2.0, COEFFS, true);
+        cache.put(key(3), BC, 3.0, COEFFS, true);
+        assertEquals(3, cache.size());
+        assertEquals(0, cache.getEvictions());
+
+        // Using 1 leaves 2 as the least recently used
+        cache.get(key(1));
+        cache.put(key(4), BC, 4.0, COEFFS, true);
+
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertNull(cache.get(key(2)));
+        assertEquals(1.0, cache.get(key(1)).T(), 0.0);
+        assertEquals(3.0, cache.get(key(3)).T(), 0.0);
+        assertEquals(4.0, cache.get(key(4)).T(), 0.0);
+    }
+
+    @Test
+    public void storesCopies() {
+        SegmentCache cache = new SegmentCache(1);
+        double[] bc = {1.0, 2.0, 3.0, 4.0, 5.0, 6.0, 7.0, 8.0, 9.0, 10.0, 11.0, 12.0};
+        cache.put(key(1), bc, 1.0, COEFFS, true);
+
+        SegmentCache.Entry entry = cache.get(key(1));
+        assertTrue(entry.solvedFor(bc.clone()));
+        bc[0] = 0.0;
+        assertFalse(entry.solvedFor(bc));
+    }
+
+    @Test
+    public void exactHitsAreReusedAsIs() {
+        Waypoint start = new Waypoint(2.0, 5.0, 0.3, 0.0, 0.0), goal = new Waypoint(14.0, 9.0, -0.4, 6.0, 0.0);
+        PathGen2D.CACHE.clear();
+
+        PathGen2D.Solution cold = PathGen2D.solveSegment(start, goal, PathGen2D.TSearch.BISECTION, 0.01, Double.NaN);
+        PathGen2D.Solution hit = PathGen2D.solveSegment(start, goal, PathGen2D.TSearch.BISECTION, 0.01, Double.NaN);
+
+        assertEquals(0, hit.iterations());
+        assertEquals(cold.T(), hit.T(), 0.0);
+        assertSame(PathGen2D.CACHE.get(key(start, goal)).coeffs(), hit.coeffs());
+    }
+
+    @Test
+    public void nearHitsStillFindTheSmallestT() {
+        Waypoint start = new Waypoint(2.0, 5.0, 0.3, 0.0, 0.0), goal = new Waypoint(14.0, 9.0, -0.4, 6.0, 0.0);
+        PathGen2D.CACHE.clear();
+        PathGen2D.Solution cold = PathGen2D.solveSegment(start, goal, PathGen2D.TSearch.BISECTION, 0.01, Double.NaN);
+
+        // An entry under the same key for slightly different boundary conditions, whose T also satisfies max_accel here but is longer
+        PathGen2D.CACHE.clear();
+        PathGen2D.CACHE.put(key(start, goal), BC, cold.T() + 1.0, COEFFS, true);
+        long misses = PathGen2D.CACHE.getMisses();
+        PathGen2D.Solution near = PathGen2D.solveSegment(start, goal, PathGen2D.TSearch.BISECTION, 0.01, Double.NaN);
+
+        assertEquals(cold.T(), near.T(), 0.0);
+        assertTrue(near.iterations() > 0);
+        assertEquals(misses + 1, PathGen2D.CACHE.getMisses());
+    }
+
+    private static SegmentCache.Key key(int i) {
+        return new SegmentCache.Key(i, 0, 0, 0, 0, 0, 0, 0, 0, 0, 8.0, 0.01, 0.01, PathGen2D.TSearch.BISECTION, 1);
+    }
+
+    private static SegmentCache.Key key(Waypoint start, Waypoint goal) {
+        return PathGen2D.cacheKey(start.getX(), start.getY(), start.getRad(), start.getV(), start.getA(), goal.getX(), goal.getY(),
+                goal.getRad(), goal.getV(), goal.getA(), PathGen2D.TSearch.BISECTION, 1);
+    }
+}
@@ -0,0 +1,45 @@
+import org.junit.Test;
+import util.PathResults;
+import util.Waypoint;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks the trajectory against the samples PathGen2D generates for the same waypoints.
+ */
+public class TrajectoryTest {
+    private static final Waypoint[] WAYPOINTS = {new Waypoint(0.0, 23.14, 0.0, 0.0, 12.0),
+            new Waypoint(19.31, 16.55, Math.toRadians(-90.0), 12.0, 12.0), new Waypoint(19.31, 11.03, Math.toRadians(-90.0), 9.0, -12.0),
+            new Waypoint(24.13, 6.35, Math.toRadians(20.0), 0.0, -12.0)};
+    private static final double POSITION_TOL = 1e-9; // ft
+
+    @Test
+    public void matchesPathGen2DSamples() {
+        PathGen2D gen = new PathGen2D(WAYPOINTS);
+        Trajectory trajectory = Trajectory.plan(WAYPOINTS);
+
+        assertEquals(WAYPOINTS.length - 1, trajectory.getSegmentCount());
+        assertEquals(gen.results.time.getLast(), trajectory.getDuration(), 1e-12);
+
+        for (int i = 0; i < gen.results.size(); i++) {
+            Trajectory.State state = trajectory.stateAt(gen.results.time.get(i));
+            assertEquals("x at sample " + i, gen.results.x.get(i), state.x(), POSITION_TOL);
+            assertEquals("y at sample " + i, gen.results.y.get(i), state.y(), POSITION_TOL);
+        }
+    }
+
+    @Test
+    public void sampleLaysOutSamplesLikePathGen2D() {
+        PathGen2D gen = new PathGen2D(WAYPOINTS);
+        PathResults samples = Trajectory.plan(WAYPOINTS).sample(0.01);
+
+        assertEquals(gen.results.size(), samples.size());
+        for (int i = 0; i < samples.size(); i++) {
+            assertEquals("time at sample " + i, gen.results.time.get(i), samples.time.get(i), 1e-9);
+            assertEquals("x at sample " + i, gen.results.x.get(i), samples.x.get(i), POSITION_TOL);
+        }
+
+        // The end of the path has the last waypoint's heading, the same as PathGen2D fixes it to
+        assertEquals(WAYPOINTS[WAYPOINTS.length - 1].getRad(), samples.rad.getLast(), 0.0);
+    }
+}
@@ -0,0 +1,76 @@
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import util.DoubleList;
+import util.PathOffsets;
+import util.PathResults;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Samples and offsets random segments with both the scalar and the vectorized kernels and checks that every column comes out bit for bit
+ * the same. Both are called directly, so this holds whichever kernels the tests run with. It's skipped without jdk.incubator.vector.
+ */
+public class VectorKernelsTest {
+    private static final double STEPS_PER_SECOND = 100.0; // PathGen2D's
+    private static final double[] FORWARD = {1.0, 1.0, -1.0, -1.0}, LATERAL = {0.9, -0.9, 0.9, -0.9}; // ft, bumper corners
+
+    @BeforeClass
+    public static void requireVectorModule() {
+        Assume.assumeTrue(ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent());
+    }
+
+    @Test
+    public void sampleAndOffsetMatchTheScalarKernels() {
+        Random random = new Random(13);
+
+        // Enough segments for both to get compiled, since that's where the vector functions used to round differently
+        for (int segment = 0; segment < 2000; segment++) {
+            double T = 0.5 + random.nextDouble() * 3.0;
+            // Every few segments start or end stopped, which the vectorized kernel hands to the scalar one
+            double vs = segment % 4 == 0 ? 0.0 : random.nextDouble() * 8.0, ve = segment % 5 == 0 ? 0.0 : random.nextDouble() * 8.0;
+            double yawS = random.nextDouble() * 2.0 * Math.PI - Math.PI, yawE = random.nextDouble() * 2.0 * Math.PI - Math.PI;
+            QuinticPolynomial xqp = new QuinticPolynomial(random.nextDouble() * 50.0, vs * Math.cos(yawS), random.nextDouble() - 0.5,
+                    random.nextDouble() * 50.0, ve * Math.cos(yawE), random.nextDouble() - 0.5, T);
+            QuinticPolynomial yqp = new QuinticPolynomial(random.nextDouble() * 25.0, vs * Math.sin(yawS), random.nextDouble() - 0.5,
+                    random.nextDouble() * 25.0, ve * Math.sin(yawE), random.nextDouble() - 0.5, T);
+            int count = (int) Math.round(T * STEPS_PER_SECOND) + 1;
+            String at = "segment " + segment;
+
+            PathResults scalar = new PathResults(count), vector = new PathResults(count);
+            assertEquals(at, QuinticPolynomial.sample(xqp, yqp, STEPS_PER_SECOND, 0, count, scalar, false),
+                    VectorKernels.sample(xqp, yqp, STEPS_PER_SECOND, count, vector), 0.0);
+            assertColumnsEqual(at, scalar, vector);
+
+            double[][] scalarX = new double[4][count], scalarY = new double[4][count], scalarV = new double[4][count];
+            double[][] vectorX = new double[4][count], vectorY = new double[4][count], vectorV = new double[4][count];
+            PathOffsets.offset(scalar, 0, count, FORWARD, LATERAL, scalarX, scalarY, scalarV, 0, false);
+            VectorKernels.offset(vector, 0, count, FORWARD, LATERAL, vectorX, vectorY, vectorV);
+            for (int k = 0; k < LATERAL.length; k++) {
+                for (int i = 0; i < count; i++) {
+                    assertEquals(at + ", offset point " + k + ", sample " + i, scalarX[k][i], vectorX[k][i], 0.0);
+                    assertEquals(at + ", offset point " + k + ", sample " + i, scalarY[k][i], vectorY[k][i], 0.0);
+                    assertEquals(at + ", offset point " + k + ", sample " + i, scalarV[k][i], vectorV[k][i], 0.0);
+                }
+            }
+        }
+    }
+
+    private static void assertColumnsEqual(String at, PathResults expected, PathResults actual) {
+        assertEquals(at, expected.size(), actual.size());
+
+        DoubleList[] expectedColumns = columns(expected), actualColumns = columns(actual);
+        for (int c = 0; c < expectedColumns.length; c++) {
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(at + ", column " + c + ", sample " + i, expectedColumns[c].get(i), actualColumns[c].get(i), 0.0);
+            }
+        }
+    }
+
+    private static DoubleList[] columns(PathResults results) {
+        return new DoubleList[]{results.time, results.x, results.y, results.rad, results.deg, results.vel, results.acc, results.jerk,
+                results.roc, results.distance, results.omega};
+    }
+}
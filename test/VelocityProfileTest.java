@@ -0,0 +1,73 @@
+import org.junit.Test;
+import util.PathResults;
+import util.Waypoint;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that a re-timed path stays inside every limit it was profiled with, and is faster than the quintics' own timing.
+ */
+public class VelocityProfileTest {
+    private static final double ROBOT_TRK_WIDTH = 1.744792; // ft
+    private static final double MAX_WHEEL_VEL = 12.0, MAX_ACCEL = 8.0, MAX_CENTRIPETAL_ACCEL = 8.0;
+    private static final double DS = 0.05; // ft
+    private static final double EPS = 1e-9;
+    private static final Waypoint[] WAYPOINTS = {new Waypoint(1.0, 24.0, 0.0, 0.0, 8.0), new Waypoint(2.0, 24.0, 0.0, 4.4, 8.0),
+            new Waypoint(7.0, 19.0, Math.toRadians(-90.0), 4.4, -8.0), new Waypoint(7.0, 18.0, Math.toRadians(-90.0), 0.0, -8.0)};
+
+    private final PathGen2D gen = new PathGen2D(WAYPOINTS);
+    private final PathResults profiled = new VelocityProfile(MAX_WHEEL_VEL, MAX_ACCEL, MAX_CENTRIPETAL_ACCEL, ROBOT_TRK_WIDTH).profile(
+            new ArcLengthIndex(gen.getTrajectory()), DS, WAYPOINTS[0].getV(), WAYPOINTS[WAYPOINTS.length - 1].getV());
+
+    @Test
+    public void staysInsideTheLimits() {
+        for (int i = 0; i < profiled.size(); i++) {
+            double vel = profiled.vel.get(i), roc = profiled.roc.get(i);
+            double curvature = Double.isInfinite(roc) ? 0.0 : Math.abs(1.0 / roc);
+
+            assertTrue("wheel speed at sample " + i, vel * (1.0 + curvature * ROBOT_TRK_WIDTH / 2.0) <= MAX_WHEEL_VEL + EPS);
+            assertTrue("centripetal acceleration at sample " + i, vel * vel * curvature <= MAX_CENTRIPETAL_ACCEL + EPS);
+            assertTrue("acceleration at sample " + i, Math.abs(profiled.acc.get(i)) <= MAX_ACCEL + EPS);
+        }
+    }
+
+    @Test
+    public void startsAndEndsAtTheWaypointSpeeds() {
+        assertEquals(WAYPOINTS[0].getV(), profiled.vel.get(0), EPS);
+        assertEquals(WAYPOINTS[WAYPOINTS.length - 1].getV(), profiled.vel.getLast(), EPS);
+        assertEquals(0.0, profiled.time.get(0), 0.0);
+
+        for (int i = 1; i < profiled.size(); i++) {
+            assertTrue("time at sample " + i, profiled.time.get(i) >= profiled.time.get(i - 1));
+        }
+    }
+
+    @Test
+    public void interiorWaypointSpeedsCapTheProfile() {
+        // A straight line that has to slow down to 1 ft/s halfway along it
+        Waypoint[] waypoints = {new Waypoint(0.0, 0.0, 0.0, 0.0, 0.0), new Waypoint(10.0, 0.0, 0.0, 1.0, 0.0),
+                new Waypoint(20.0, 0.0, 0.0, 0.0, 0.0)};
+        VelocityProfile profile = new VelocityProfile(MAX_WHEEL_VEL, MAX_ACCEL, MAX_CENTRIPETAL_ACCEL, ROBOT_TRK_WIDTH);
+        ArcLengthIndex index = new ArcLengthIndex(new PathGen2D(waypoints).getTrajectory());
+
+        PathResults capped = profile.profile(index, DS, waypoints), ends = profile.profile(index, DS, 0.0, 0.0);
+        double middle = index.arcLengthTo(index.getTrajectory().getStartTime(1));
+        int at = (int) Math.round(middle / DS);
+
+        assertEquals(1.0, capped.vel.get(at), EPS);
+        assertTrue(ends.vel.get(at) > 2.0);
+        assertTrue(capped.time.getLast() > ends.time.getLast());
+
+        // Everywhere else only as fast as it can slow down to the cap by then, or speed up from it since
+        for (int i = 0; i < capped.size(); i++) {
+            double s = Math.abs(capped.distance.get(i) - capped.distance.get(at));
+            assertTrue("speed at sample " + i, capped.vel.get(i) <= Math.sqrt(1.0 + 2.0 * MAX_ACCEL * s) + EPS);
+        }
+    }
+
+    @Test
+    public void isFasterThanTheQuintics() {
+        assertTrue(profiled.time.getLast() < gen.results.time.getLast());
+    }
+}
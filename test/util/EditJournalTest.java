@@ -0,0 +1,506 @@
+package util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Makes edits to a session the way PathGUITool does, records them in an EditJournal, and checks that what gets recovered is the same as a
+ * model of the session that is kept separately, with plain lists of the values of each waypoint.
+ */
+public class EditJournalTest {
+    private static final long NEVER = Long.MAX_VALUE;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * The session as lists of {x, y, rad, deg, v, a}, which is edited alongside the real one without going through Path or EditJournal
+     */
+    private static final class Model {
+        final List<double[]> current = new ArrayList<>(), redo = new ArrayList<>();
+        final LinkedHashMap<String, List<double[]>> paths = new LinkedHashMap<>();
+
+        Model copy() {
+            Model copy = new Model();
+            copy.current.addAll(current);
+            copy.redo.addAll(redo);
+            paths.forEach((name, points) -> copy.paths.put(name, new ArrayList<>(points)));
+            return copy;
+        }
+    }
+
+    /**
+     * A session being edited and journaled, and the model of it
+     */
+    private final class Editor {
+        final File dir;
+        final Random random;
+        final Model model;
+        EditJournal.Session session;
+        EditJournal journal;
+
+        Editor(File dir, Random random, Model model) {
+            this.dir = dir;
+            this.random = random;
+            this.model = model;
+        }
+
+        /**
+         * Opens the journal into a new session, recovering whatever is in dir, as the program does when it's started again
+         */
+        void open(long compactBytes) throws IOException {
+            session = newSession();
+            journal = EditJournal.open(dir, session, () -> true, compactBytes);
+        }
+
+        /**
+         * Makes a random edit, if it can be made to the session as it is
+         *
+         * @return whether an edit was made and recorded
+         */
+        boolean edit() {
+            Path current = session.currentPath();
+            int op = random.nextInt(100);
+
+            if (op < 40) {
+                Waypoint w = randomWaypoint(random);
+                current.clickPoints.add(w);
+                session.redoBuffer().clear();
+                journal.add(w);
+                model.current.add(values(w));
+                model.redo.clear();
+            } else if (op < 65) {
+                List<String> names = new ArrayList<>(session.paths().keySet());
+                names.add("current");
+                String name = names.get(random.nextInt(names.size()));
+                Path path = name.equals("current") ? current : session.paths().get(name);
+                List<double[]> modelPath = name.equals("current") ? model.current : model.paths.get(name);
+                if (path.clickPoints.isEmpty()) {
+                    return false;
+                }
+
+                // The GUI moves points and changes their angles in place, and sets deg without rad going through toDegrees sometimes
+                int index = random.nextInt(path.clickPoints.size());
+                Waypoint w = path.clickPoints.get(index);
+                if (random.nextBoolean()) {
+                    w.incrementPosition(random.nextDouble() - 0.5, random.nextDouble() - 0.5);
+                } else {
+                    w.setDegVelAcc(random.nextDouble() * 360.0 - 180.0, random.nextDouble() * 10.0, random.nextDouble() * 8.0);
+                }
+                journal.set(name, index, w);
+                modelPath.set(index, values(w));
+            } else if (op < 77) {
+                if (current.clickPoints.isEmpty()) {
+                    return false;
+                }
+                session.redoBuffer().clickPoints.add(current.clickPoints.removeLast());
+                journal.undo();
+                model.redo.add(model.current.remove(model.current.size() - 1));
+            } else if (op < 87) {
+                if (session.redoBuffer().clickPoints.isEmpty()) {
+                    return false;
+                }
+                current.clickPoints.add(session.redoBuffer().clickPoints.removeLast());
+                journal.redo();
+                model.current.add(model.redo.remove(model.redo.size() - 1));
+            } else if (op < 93) {
+                if (current.clickPoints.isEmpty()) {
+                    return false;
+                }
+                String name = "path" + (session.paths().size() + 1);
+                session.paths().put(name, new Path(current));
+                current.clear();
+                journal.store();
+                model.paths.put(name, new ArrayList<>(model.current));
+                model.current.clear();
+            } else if (op < 99) {
+                Path path = new Path();
+                for (int i = random.nextInt(6); i > 0; i--) {
+                    path.clickPoints.add(randomWaypoint(random));
+                }
+                String name = "path" + (session.paths().size() + 1);
+                session.paths().put(name, path);
+                journal.importPath(path);
+                model.paths.put(name, path.clickPoints.stream().map(EditJournalTest::values).collect(ArrayList::new, List::add,
+                        List::addAll));
+            } else {
+                current.clear();
+                session.paths().clear();
+                session.redoBuffer().clear();
+                journal.clear();
+                model.current.clear();
+                model.redo.clear();
+                model.paths.clear();
+            }
+
+            return true;
+        }
+    }
+
+    @Test
+    public void recoversEveryEditAcrossCrashesAndCompactions() throws IOException {
+        Random random = new Random(19);
+        File dir = folder.newFolder();
+        Editor editor = new Editor(dir, random, new Model());
+        // Small enough that the journal is compacted every few dozen edits, with the redo buffer full or empty at the time
+        long compactBytes = 2048;
+        editor.open(compactBytes);
+
+        for (int i = 0; i < 20_000; i++) {
+            editor.edit();
+
+            // A crash after the last batch was written, which leaves the journal and snapshot as they are for the next start
+            if (random.nextInt(1000) == 0) {
+                editor.journal.close();
+                editor.open(compactBytes);
+                assertSession(editor.model, editor.session);
+            }
+        }
+
+        editor.journal.close();
+        editor.open(compactBytes);
+        assertSession(editor.model, editor.session);
+        editor.journal.close();
+
+        // The default threshold gets the same session back too
+        editor.open(EditJournal.COMPACT_BYTES);
+        assertSession(editor.model, editor.session);
+        editor.journal.close();
+    }
+
+    @Test
+    public void ignoresJunkAfterTheLastRecord() throws IOException {
+        File dir = folder.newFolder();
+        Editor editor = edited(dir, 200);
+        File journal = new File(dir, "session.journal");
+        long length = journal.length();
+
+        // A length that runs off the end, and then bytes that are nothing at all
+        ByteBuffer junk = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN).putInt(1000);
+        new Random(1).ints(60, 0, 256).forEach(b -> junk.put((byte) b));
+        Files.write(journal.toPath(), junk.array(), StandardOpenOption.APPEND);
+
+        editor.open(NEVER);
+        assertSession(editor.model, editor.session);
+        assertEquals("The junk should be cut off", length, journal.length());
+
+        // Records after the junk was cut off are recovered too
+        for (int i = 0; i < 50; i++) {
+            editor.edit();
+        }
+        editor.journal.close();
+        editor.open(NEVER);
+        assertSession(editor.model, editor.session);
+        editor.journal.close();
+    }
+
+    @Test
+    public void dropsATornLastRecord() throws IOException {
+        File dir = folder.newFolder();
+        Editor editor = edited(dir, 100);
+        Model beforeLast = editor.model.copy();
+
+        editor.open(NEVER);
+        addUntilWritten(editor);
+        editor.journal.close();
+
+        File journal = new File(dir, "session.journal");
+        List<Integer> ends = recordEnds(journal);
+        int lastStart = ends.get(ends.size() - 2);
+
+        // Cut anywhere inside the last record, from just after its length to just before the end of its CRC
+        for (int cut = lastStart + 1; cut < ends.get(ends.size() - 1); cut += 7) {
+            File copy = copyOf(dir);
+            truncate(new File(copy, "session.journal"), cut);
+
+            EditJournal.Session session = newSession();
+            EditJournal.open(copy, session, () -> true, NEVER).close();
+            assertSession(beforeLast, session);
+        }
+    }
+
+    @Test
+    public void stopsAtTheFirstRecordThatFailsItsCrc() throws IOException {
+        Random random = new Random(7);
+        File dir = folder.newFolder();
+        Editor editor = new Editor(dir, random, new Model());
+        editor.open(NEVER);
+
+        // The model after each record, for the prefix that's left when a record is corrupted
+        List<Model> states = new ArrayList<>();
+        states.add(editor.model.copy());
+        for (int i = 0; i < 300; i++) {
+            if (editor.edit()) {
+                states.add(editor.model.copy());
+            }
+        }
+        editor.journal.close();
+
+        List<Integer> ends = recordEnds(new File(dir, "session.journal"));
+        assertEquals(states.size(), ends.size());
+
+        for (int record = 1; record < ends.size(); record += 13) {
+            File copy = copyOf(dir);
+            // Flip a bit in the middle of the record's body
+            int at = (ends.get(record - 1) + ends.get(record)) / 2;
+            byte[] bytes = Files.readAllBytes(new File(copy, "session.journal").toPath());
+            bytes[at] ^= 0x10;
+            Files.write(new File(copy, "session.journal").toPath(), bytes);
+
+            EditJournal.Session session = newSession();
+            EditJournal.open(copy, session, () -> true, NEVER).close();
+            assertSession(states.get(record - 1), session);
+        }
+    }
+
+    @Test
+    public void stopsAtTheFirstRecordWithAnUnknownOp() throws IOException {
+        Random random = new Random(19);
+        File dir = folder.newFolder();
+        Editor editor = new Editor(dir, random, new Model());
+        editor.open(NEVER);
+
+        List<Model> states = new ArrayList<>();
+        states.add(editor.model.copy());
+        for (int i = 0; i < 200; i++) {
+            if (editor.edit()) {
+                states.add(editor.model.copy());
+            }
+        }
+        editor.journal.close();
+
+        List<Integer> ends = recordEnds(new File(dir, "session.journal"));
+
+        for (int record = 1; record < ends.size(); record += 11) {
+            for (byte op : new byte[]{-1, 100}) {
+                File copy = copyOf(dir);
+                // Replace the op after the record's length and sequence number, with a CRC that matches, as if a newer version wrote it
+                byte[] bytes = Files.readAllBytes(new File(copy, "session.journal").toPath());
+                ByteBuffer buf = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+                int start = ends.get(record - 1), length = buf.getInt(start);
+                buf.put(start + Integer.BYTES + Long.BYTES, op);
+                CRC32 crc = new CRC32();
+                crc.update(bytes, start + Integer.BYTES, length);
+                buf.putInt(start + Integer.BYTES + length, (int) crc.getValue());
+                Files.write(new File(copy, "session.journal").toPath(), bytes);
+
+                EditJournal.Session session = newSession();
+                EditJournal.open(copy, session, () -> true, NEVER).close();
+                assertSession(states.get(record - 1), session);
+            }
+        }
+    }
+
+    @Test
+    public void skipsRecordsTheSnapshotAlreadyHas() throws IOException {
+        File dir = folder.newFolder();
+        Editor editor = edited(dir, 150);
+        byte[] beforeCompaction = Files.readAllBytes(new File(dir, "session.journal").toPath());
+
+        // The first edit compacts, so the snapshot has every record there was, and the journal ends up empty
+        editor.open(0);
+        addUntilWritten(editor);
+        editor.journal.close();
+        assertTrue(new File(dir, "session.snapshot").length() > 0);
+        assertEquals(0, new File(dir, "session.journal").length());
+
+        // A crash between moving the snapshot into place and emptying the journal leaves the journal as it was
+        Files.write(new File(dir, "session.journal").toPath(), beforeCompaction);
+        editor.open(NEVER);
+        assertSession(editor.model, editor.session);
+
+        // And carries on numbering after the snapshot, so new records aren't skipped as old ones the next time
+        for (int i = 0; i < 50; i++) {
+            editor.edit();
+        }
+        editor.journal.close();
+        editor.open(NEVER);
+        assertSession(editor.model, editor.session);
+        editor.journal.close();
+    }
+
+    @Test
+    public void snapshotsKeepTheRedoBuffer() throws IOException {
+        File dir = folder.newFolder();
+        Editor editor = new Editor(dir, new Random(3), new Model());
+        editor.open(NEVER);
+
+        for (int i = 0; i < 6; i++) {
+            Waypoint w = randomWaypoint(editor.random);
+            editor.session.currentPath().clickPoints.add(w);
+            editor.journal.add(w);
+            editor.model.current.add(values(w));
+        }
+        for (int i = 0; i < 4; i++) {
+            editor.session.redoBuffer().clickPoints.add(editor.session.currentPath().clickPoints.removeLast());
+            editor.journal.undo();
+            editor.model.redo.add(editor.model.current.remove(editor.model.current.size() - 1));
+        }
+        editor.journal.close();
+
+        // An edit that leaves the redo buffer alone compacts, so the redo buffer only comes back from the snapshot
+        editor.open(0);
+        Waypoint w = editor.session.currentPath().clickPoints.get(0);
+        w.setDegVelAcc(45.0, 2.0, 1.0);
+        editor.journal.set("current", 0, w);
+        editor.model.current.set(0, values(w));
+        editor.journal.close();
+        assertEquals(0, new File(dir, "session.journal").length());
+
+        editor.open(NEVER);
+        assertSession(editor.model, editor.session);
+        assertEquals(4, editor.session.redoBuffer().clickPoints.size());
+        editor.journal.close();
+    }
+
+    @Test
+    public void onlyOneInstanceCanOpenTheJournal() throws IOException {
+        File dir = folder.newFolder();
+        Editor editor = edited(dir, 20);
+        editor.open(NEVER);
+
+        try {
+            EditJournal.open(dir, newSession(), () -> {
+                throw new AssertionError("Asked to recover a session that's still open");
+            });
+            fail("Opened a journal that's already open");
+        } catch (IOException e) {
+            // Expected
+        }
+
+        editor.journal.close();
+        editor.open(NEVER);
+        assertSession(editor.model, editor.session);
+        editor.journal.close();
+    }
+
+    @Test
+    public void discardOrDecliningLeavesNothingToRecover() throws IOException {
+        File dir = folder.newFolder();
+        edited(dir, 20);
+
+        EditJournal.Session declined = newSession();
+        EditJournal.open(dir, declined, () -> false).discard();
+        assertSession(new Model(), declined);
+
+        Editor editor = edited(dir, 20);
+        editor.open(NEVER);
+        editor.journal.discard();
+
+        EditJournal.Session session = newSession();
+        EditJournal.open(dir, session, () -> {
+            throw new AssertionError("Asked to recover a discarded session");
+        }).close();
+        assertSession(new Model(), session);
+    }
+
+    /**
+     * @return an editor that has made count random edits to a new session in dir and closed it, with no compactions
+     */
+    private Editor edited(File dir, int count) throws IOException {
+        Editor editor = new Editor(dir, new Random(count), new Model());
+        editor.open(NEVER);
+
+        for (int i = 0; i < count; i++) {
+            editor.edit();
+        }
+
+        editor.journal.close();
+        return editor;
+    }
+
+    /**
+     * Adds a point, which is always written
+     */
+    private static void addUntilWritten(Editor editor) {
+        Waypoint w = randomWaypoint(editor.random);
+        editor.session.currentPath().clickPoints.add(w);
+        editor.session.redoBuffer().clear();
+        editor.journal.add(w);
+        editor.model.current.add(values(w));
+        editor.model.redo.clear();
+    }
+
+    private static EditJournal.Session newSession() {
+        return new EditJournal.Session(new Path(), new LinkedHashMap<>(), new Path());
+    }
+
+    private static Waypoint randomWaypoint(Random random) {
+        return new Waypoint(random.nextDouble() * 54.0, random.nextDouble() * 27.0, random.nextDouble() * 6.0 - 3.0,
+                random.nextDouble() * 10.0, random.nextDouble() * 16.0 - 8.0);
+    }
+
+    private static double[] values(Waypoint w) {
+        return new double[]{w.getX(), w.getY(), w.getRad(), w.getDeg(), w.getV(), w.getA()};
+    }
+
+    /**
+     * @return the offsets every record ends at in the journal, starting with 0 for the start of the first one
+     */
+    private static List<Integer> recordEnds(File journal) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(journal.toPath())).order(ByteOrder.LITTLE_ENDIAN);
+        List<Integer> ends = new ArrayList<>(List.of(0));
+
+        while (buf.hasRemaining()) {
+            buf.position(buf.position() + Integer.BYTES + buf.getInt(buf.position()) + Integer.BYTES);
+            ends.add(buf.position());
+        }
+
+        return ends;
+    }
+
+    private File copyOf(File dir) throws IOException {
+        File copy = folder.newFolder();
+        for (String name : new String[]{"session.journal", "session.snapshot"}) {
+            File file = new File(dir, name);
+            if (file.exists()) {
+                Files.copy(file.toPath(), new File(copy, name).toPath());
+            }
+        }
+
+        return copy;
+    }
+
+    private static void truncate(File file, int length) throws IOException {
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        Files.write(file.toPath(), Arrays.copyOf(bytes, length));
+    }
+
+    private static void assertSession(Model expected, EditJournal.Session actual) {
+        assertPoints("current path", expected.current, actual.currentPath().clickPoints);
+        assertPoints("redo buffer", expected.redo, actual.redoBuffer().clickPoints);
+        assertEquals(List.copyOf(expected.paths.keySet()), List.copyOf(actual.paths().keySet()));
+
+        for (Map.Entry<String, List<double[]>> e : expected.paths.entrySet()) {
+            assertPoints(e.getKey(), e.getValue(), actual.paths().get(e.getKey()).clickPoints);
+        }
+    }
+
+    private static void assertPoints(String what, List<double[]> expected, List<Waypoint> actual) {
+        assertEquals(what, expected.size(), actual.size());
+
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(what + " point " + i, expected.get(i), values(actual.get(i)), 0.0);
+        }
+    }
+}
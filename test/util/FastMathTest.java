@@ -0,0 +1,58 @@
+package util;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks every function against Math over random arguments the size of the ones paths produce
+ */
+public class FastMathTest {
+    private static final int N = 1 << 20;
+
+    @Test
+    public void atan2IsWithinItsBound() {
+        Random random = new Random(2022);
+        for (int i = 0; i < N; i++) {
+            double y = random.nextGaussian() * 30.0, x = random.nextGaussian() * 30.0;
+            assertEquals(Math.atan2(y, x), FastMath.atan2(y, x), FastMath.ATAN2_MAX_ERROR);
+        }
+
+        for (double y : new double[]{0.0, -0.0, 1.0, -1.0, Double.POSITIVE_INFINITY, Double.NaN}) {
+            for (double x : new double[]{0.0, -0.0, 1.0, -1.0, Double.NEGATIVE_INFINITY}) {
+                assertEquals(Math.atan2(y, x), FastMath.atan2(y, x), FastMath.ATAN2_MAX_ERROR);
+            }
+        }
+    }
+
+    @Test
+    public void sinCosIsWithinItsBound() {
+        Random random = new Random(2022);
+        double[] sinCos = new double[2];
+        for (int i = 0; i < N; i++) {
+            double x = random.nextGaussian() * 30.0;
+            FastMath.sinCos(x, sinCos);
+            assertEquals(Math.sin(x), sinCos[0], FastMath.SIN_COS_MAX_ERROR);
+            assertEquals(Math.cos(x), sinCos[1], FastMath.SIN_COS_MAX_ERROR);
+        }
+
+        // All the way out to where it hands over to Math
+        for (int i = 0; i < N; i++) {
+            double x = (2.0 * random.nextDouble() - 1.0) * FastMath.SIN_COS_MAX_ARG;
+            FastMath.sinCos(x, sinCos);
+            assertEquals(Math.sin(x), sinCos[0], FastMath.SIN_COS_MAX_ERROR);
+            assertEquals(Math.cos(x), sinCos[1], FastMath.SIN_COS_MAX_ERROR);
+        }
+    }
+
+    @Test
+    public void hypotIsWithinItsBound() {
+        Random random = new Random(2022);
+        for (int i = 0; i < N; i++) {
+            double x = random.nextGaussian() * 30.0, y = random.nextGaussian() * 30.0, exact = Math.hypot(x, y);
+            assertEquals(exact, FastMath.hypot(x, y), FastMath.HYPOT_MAX_ERROR * exact);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PathFileTest {
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readsBackWhatWasWritten() throws IOException {
+        Random random = new Random(17);
+        Path current = randomPath(random, 5, true);
+        LinkedHashMap<String, Path> paths = new LinkedHashMap<>();
+        paths.put("first", randomPath(random, 3, true));
+        paths.put("\u00fcn\u00efc\u00f6d\u00e9 name", randomPath(random, 0, false));
+        paths.put("third", randomPath(random, 8, true));
+
+        File file = folder.newFile("all." + PathFile.EXTENSION);
+        PathFile.write(file, current, paths, true);
+        assertTrue(PathFile.isPathFile(file));
+
+        PathFile.Contents contents = PathFile.read(file);
+        assertPathEquals(current, contents.currentPath(), true);
+        assertEquals(List.copyOf(paths.keySet()), List.copyOf(contents.paths().keySet()));
+        for (String name : paths.keySet()) {
+            assertPathEquals(paths.get(name), contents.paths().get(name), true);
+        }
+
+        // The mapped Library reads the same thing, and the index has the counts and bounds without decoding anything
+        PathFile.Library library = PathFile.Library.open(file);
+        assertEquals(4, library.entries().size());
+        PathFile.Entry entry = library.entries().get(3);
+        assertEquals("third", entry.name());
+        assertEquals(8, entry.waypoints());
+        assertEquals(paths.get("third").pathPoints.size(), entry.samples());
+        Path third = paths.get("third");
+        double minX = Stream.of(third.clickPoints, third.pathPoints, third.leftPoints, third.rightPoints).flatMap(List::stream)
+                .mapToDouble(Waypoint::getX).min().orElseThrow();
+        assertEquals(minX, entry.minX(), 0.0);
+        assertTrue(Double.isNaN(library.entries().get(2).minX()));
+        assertPathEquals(paths.get("first"), library.load(1), true);
+    }
+
+    @Test
+    public void keepsEverythingInAnObjectStreamSave() throws Exception {
+        PathFile.Contents saved = PathFile.readSerialized(new File(PathFileTest.class.getResource("/December272021-195613.txt").toURI()));
+        File file = folder.newFile("December272021-195613." + PathFile.EXTENSION);
+
+        PathFile.write(file, saved.currentPath(), saved.paths(), true);
+        PathFile.Contents converted = PathFile.read(file);
+
+        assertPathEquals(saved.currentPath(), converted.currentPath(), true);
+        assertEquals(List.copyOf(saved.paths().keySet()), List.copyOf(converted.paths().keySet()));
+        for (String name : saved.paths().keySet()) {
+            assertPathEquals(saved.paths().get(name), converted.paths().get(name), true);
+        }
+    }
+
+    @Test
+    public void leavesTheGeneratedPointsOutWhenAsked() throws IOException {
+        Path current = randomPath(new Random(3), 4, true);
+        File file = folder.newFile("clicks." + PathFile.EXTENSION);
+
+        PathFile.write(file, current, new LinkedHashMap<>(), false);
+        Path read = PathFile.read(file).currentPath();
+
+        assertPathEquals(current, read, false);
+        assertTrue(read.pathPoints.isEmpty() && read.leftPoints.isEmpty() && read.rightPoints.isEmpty());
+    }
+
+    @Test
+    public void savesOverAFileThatIsStillOpen() throws IOException {
+        Random random = new Random(4);
+        Path before = randomPath(random, 6, true), after = randomPath(random, 2, true);
+        File file = folder.newFile("open." + PathFile.EXTENSION);
+        PathFile.write(file, before, new LinkedHashMap<>(), true);
+
+        // A mapped Library keeps reading the file it opened, it isn't truncated under it
+        PathFile.Library mapped = PathFile.Library.open(file);
+        PathFile.write(file, after, new LinkedHashMap<>(), true);
+
+        assertPathEquals(before, mapped.load(0), true);
+        assertPathEquals(after, PathFile.Library.read(file).load(0), true);
+        assertFalse(new File(file.getPath() + ".tmp").exists());
+    }
+
+    @Test
+    public void readsVersion1Files() throws IOException {
+        Path current = randomPath(new Random(5), 3, false);
+        byte[] name = "v1".getBytes(StandardCharsets.UTF_8);
+        int points = current.clickPoints.size();
+
+        // No index, each path's name and counts come right before its points
+        ByteBuffer buf = ByteBuffer.allocate(16 + 8 + 16 + points * 40).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(PathFile.MAGIC).putInt(1).putInt(1).putInt(0);
+        buf.putInt(name.length).put(name).putShort((short) 0);
+        buf.putInt(points).putInt(0).putInt(0).putInt(0);
+        for (int c = 0; c < 5; c++) {
+            for (Waypoint w : current.clickPoints) {
+                buf.putDouble(new double[]{w.getX(), w.getY(), w.getRad(), w.getV(), w.getA()}[c]);
+            }
+        }
+
+        File file = folder.newFile("old." + PathFile.EXTENSION);
+        Files.write(file.toPath(), buf.array());
+
+        PathFile.Library library = PathFile.Library.read(file);
+        assertEquals("v1", library.entries().get(0).name());
+        assertEquals(current.clickPoints.stream().mapToDouble(Waypoint::getY).max().orElseThrow(), library.entries().get(0).maxY(), 0.0);
+        assertPathEquals(current, library.load(0), false);
+    }
+
+    @Test
+    public void rejectsCorruptFiles() throws IOException {
+        Random random = new Random(6);
+        LinkedHashMap<String, Path> paths = new LinkedHashMap<>();
+        paths.put("saved", randomPath(random, 4, true));
+        File file = folder.newFile("good." + PathFile.EXTENSION);
+        PathFile.write(file, randomPath(random, 4, true), paths, true);
+        byte[] good = Files.readAllBytes(file.toPath());
+
+        File bad = folder.newFile("bad." + PathFile.EXTENSION);
+        for (int length : new int[]{0, 3, 16, 40, good.length / 2, good.length - 1}) {
+            Files.write(bad.toPath(), Arrays.copyOf(good, length));
+            assertUnreadable(bad);
+        }
+
+        byte[] newer = good.clone();
+        ByteBuffer.wrap(newer).order(ByteOrder.LITTLE_ENDIAN).putInt(4, PathFile.VERSION + 1);
+        Files.write(bad.toPath(), newer);
+        assertUnreadable(bad);
+
+        // Counts, sizes and offsets that are garbage but still inside the file, at the count, the current path's name length, its offset
+        // and the size of its pathPoints
+        assertUnreadable(bad, good, 8, -1);
+        assertUnreadable(bad, good, 8, Integer.MAX_VALUE);
+        assertUnreadable(bad, good, 16, -1);
+        assertUnreadable(bad, good, 16, Integer.MAX_VALUE - 8);
+        assertUnreadable(bad, good, 36, -80);
+        byte[] overflowing = good.clone();
+        ByteBuffer.wrap(overflowing).order(ByteOrder.LITTLE_ENDIAN).putLong(24, Long.MAX_VALUE - 8);
+        Files.write(bad.toPath(), overflowing);
+        assertUnreadable(bad);
+
+        Files.write(bad.toPath(), "Waypoint[] nope".getBytes(StandardCharsets.UTF_8));
+        assertFalse(PathFile.isPathFile(bad));
+        assertUnreadable(bad);
+    }
+
+    /**
+     * Writes good to file with the int at byte at replaced by value, and checks that it can't be read
+     */
+    private static void assertUnreadable(File file, byte[] good, int at, int value) throws IOException {
+        byte[] bad = good.clone();
+        ByteBuffer.wrap(bad).order(ByteOrder.LITTLE_ENDIAN).putInt(at, value);
+        Files.write(file.toPath(), bad);
+        assertUnreadable(file);
+    }
+
+    private static void assertUnreadable(File file) {
+        try {
+            PathFile.Library.read(file);
+            fail(file + " was read");
+        } catch (IOException e) {
+            // Expected
+        }
+
+        try {
+            PathFile.Library.open(file);
+            fail(file + " was opened");
+        } catch (IOException e) {
+            // Expected
+        }
+    }
+
+    private static Path randomPath(Random random, int waypoints, boolean generated) {
+        Path path = new Path();
+        path.clickPoints = randomPoints(random, waypoints);
+        if (generated) {
+            path.pathPoints = randomPoints(random, 20 * waypoints);
+            path.leftPoints = randomPoints(random, 20 * waypoints);
+            path.rightPoints = randomPoints(random, 20 * waypoints);
+        }
+
+        return path;
+    }
+
+    private static BetterArrayList<Waypoint> randomPoints(Random random, int count) {
+        BetterArrayList<Waypoint> points = new BetterArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            points.add(new Waypoint(random.nextDouble() * 50.0, random.nextDouble() * 25.0, random.nextDouble() * 6.0 - 3.0,
+                    random.nextDouble() * 8.0, random.nextDouble() * 12.0 - 6.0));
+        }
+
+        return points;
+    }
+
+    private static void assertPathEquals(Path expected, Path actual, boolean generated) {
+        assertPointsEqual(expected.clickPoints, actual.clickPoints);
+        if (generated) {
+            assertPointsEqual(expected.pathPoints, actual.pathPoints);
+            assertPointsEqual(expected.leftPoints, actual.leftPoints);
+            assertPointsEqual(expected.rightPoints, actual.rightPoints);
+        }
+    }
+
+    private static void assertPointsEqual(List<Waypoint> expected, List<Waypoint> actual) {
+        assertEquals(expected.size(), actual.size());
+
+        for (int i = 0; i < expected.size(); i++) {
+            Waypoint e = expected.get(i), a = actual.get(i);
+            assertArrayEquals(new double[]{e.getX(), e.getY(), e.getRad(), e.getDeg(), e.getV(), e.getA()},
+                    new double[]{a.getX(), a.getY(), a.getRad(), a.getDeg(), a.getV(), a.getA()}, 0.0);
+        }
+    }
+}